@@ -4,9 +4,15 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.change.ChangeRecorder;
+import study.querydsl.change.ChangeTrackingJPAQueryFactory;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling //member.export.cron
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
@@ -14,8 +20,9 @@ public class QuerydslApplication {
 	}
 
 	//JPAQueryFactory 를 Spring Bean 으로 등록하기
+	//bulk update/delete 도 변경 피드에 남도록 ChangeTrackingJPAQueryFactory 를 사용
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+	JPAQueryFactory jpaQueryFactory(EntityManager em, ChangeRecorder changeRecorder) {
+		return new ChangeTrackingJPAQueryFactory(em, changeRecorder);
 	}
 }
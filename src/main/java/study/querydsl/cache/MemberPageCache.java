@@ -0,0 +1,210 @@
+package study.querydsl.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 검색 페이지(MemberTeamDto) 캐시. 메모리 맵 파일에 저장하므로 재시작 후에도 남아 있다. (cold start 시 DB 부하 감소)
+ *
+ * <pre>
+ * header : [int magic][int format][long epoch][int position][int count]
+ * </pre>
+ * 유효성은 DB 에 저장된 데이터 버전(DataVersionCounter)으로 판단한다. 각 entry 는 조회 직전의 버전을 가지고,
+ * get 할 때 현재 버전과 다르면 stale 이다. 버전은 Member/Team 쓰기 트랜잭션과 같이 커밋되므로
+ * 커밋 직후의 조회부터 (다른 인스턴스의 쓰기, 내려가 있는 동안의 쓰기 포함) 이전 entry 를 쓰지 않는다.
+ * 파일의 epoch 가 data_version 행과 다르면 (테이블이 다시 만들어짐) 전부 버린다.
+ * 대신 get 마다 data_version 행을 한 번 읽는다.
+ */
+@Slf4j
+@Component
+public class MemberPageCache {
+
+    private static final int MAGIC = 0x4D504731; //"MPG1"
+    private static final int FORMAT = 2;
+
+    private static final int EPOCH = 8;
+    private static final int POSITION = 16;
+    private static final int COUNT = 20;
+    private static final int HEADER_SIZE = 24;
+
+    private final PageCacheProperties properties;
+    private final DataVersionCounter dataVersionCounter;
+
+    //index 와 버퍼 쓰기는 write lock, 읽기는 read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> index = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private volatile boolean opened;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    public MemberPageCache(PageCacheProperties properties, DataVersionCounter dataVersionCounter,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dataVersionCounter = dataVersionCounter;
+        FunctionCounter.builder("member.search.page-cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("member.search.page-cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("member.search.page-cache.stale", stale, LongAdder::sum).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path file = properties.getFile().toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, properties.getSize().toBytes());
+
+        DataVersionCounter.Stamp current = dataVersionCounter.current();
+        lock.writeLock().lock();
+        try {
+            boolean readable = buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT;
+            if (readable && buffer.getLong(EPOCH) == current.epoch()) {
+                load(current.version());
+            } else {
+                clear(current.epoch());
+            }
+            opened = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member page cache opened: {} ({} entries)", file, index.size());
+    }
+
+    public boolean isEnabled() {
+        return opened;
+    }
+
+    //조회 전에 읽어서 put 에 넘긴다. 조회 도중 커밋된 변경이 있으면 그 entry 는 처음부터 stale 이다.
+    public DataVersionCounter.Stamp currentVersion() {
+        return dataVersionCounter.current();
+    }
+
+    public Optional<Page<MemberTeamDto>> get(String key, Pageable pageable) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        DataVersionCounter.Stamp current = dataVersionCounter.current();
+        lock.readLock().lock();
+        try {
+            Integer offset = opened ? index.get(key) : null;
+            if (offset == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            if (buffer.getLong(EPOCH) != current.epoch() || MemberPageCodec.dataVersion(buffer, offset) != current.version()) {
+                stale.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            MemberPageCodec.CachedPage page = MemberPageCodec.decode(buffer, offset);
+            return Optional.of(new PageImpl<>(page.content(), pageable, page.total()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(String key, DataVersionCounter.Stamp dataVersion, Page<MemberTeamDto> page) {
+        if (!isEnabled()) {
+            return;
+        }
+        byte[] entry = MemberPageCodec.encode(key, dataVersion.version(), page.getTotalElements(), page.getContent());
+        lock.writeLock().lock();
+        try {
+            if (!opened || entry.length > buffer.capacity() - HEADER_SIZE) {
+                return;
+            }
+            if (buffer.getLong(EPOCH) != dataVersion.epoch()) {
+                clear(dataVersion.epoch()); //실행 중에 테이블이 다시 만들어짐
+            }
+            int position = buffer.getInt(POSITION);
+            if (position + entry.length > buffer.capacity()) {
+                clear(dataVersion.epoch()); //가득 차면 비우고 처음부터 (stale entry 정리도 겸함)
+                position = HEADER_SIZE;
+            }
+            buffer.put(position, entry);
+            index.put(key, position);
+            buffer.putInt(POSITION, position + entry.length);
+            buffer.putInt(COUNT, buffer.getInt(COUNT) + 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //파일에 남아있는 entry 중 현재 버전인 것만으로 index 를 다시 만든다. 같은 key 는 뒤에 쓴 entry 가 최신
+    private void load(long version) {
+        int end = buffer.getInt(POSITION);
+        int offset = HEADER_SIZE;
+        while (offset < end) {
+            String key = MemberPageCodec.key(buffer, offset);
+            if (MemberPageCodec.dataVersion(buffer, offset) == version) {
+                index.put(key, offset);
+            } else {
+                index.remove(key);
+            }
+            offset += MemberPageCodec.length(buffer, offset);
+        }
+    }
+
+    private void clear(long epoch) {
+        index.clear();
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT);
+        buffer.putLong(EPOCH, epoch);
+        buffer.putInt(POSITION, HEADER_SIZE);
+        buffer.putInt(COUNT, 0);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            opened = false;
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStale() {
+        return stale.sum();
+    }
+}
@@ -0,0 +1,120 @@
+package study.querydsl.cache;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 캐시 파일 entry 바이너리 형식
+ * <pre>
+ * entry   : [int 전체길이][long dataVersion][short keyLength][key utf-8][payload]
+ * payload : [long total][int rowCount] row*
+ * row     : [long memberId][string username][int age][long teamId (없으면 MIN_VALUE)][string teamName]
+ * string  : [short length (null 이면 -1)][utf-8]
+ * </pre>
+ * 자바 직렬화 없이 mmap 버퍼에서 바로 필드를 읽어 dto 를 만든다.
+ */
+class MemberPageCodec {
+
+    private static final long NO_TEAM = Long.MIN_VALUE;
+
+    static byte[] encode(String key, long dataVersion, long total, List<MemberTeamDto> content) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> strings = new ArrayList<>(content.size() * 2);
+        int length = Integer.BYTES + Long.BYTES + Short.BYTES + keyBytes.length + Long.BYTES + Integer.BYTES;
+        for (MemberTeamDto dto : content) {
+            byte[] username = utf8(dto.getUsername());
+            byte[] teamName = utf8(dto.getTeamName());
+            strings.add(username);
+            strings.add(teamName);
+            length += Long.BYTES + stringLength(username) + Integer.BYTES + Long.BYTES + stringLength(teamName);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length);
+        buffer.putLong(dataVersion);
+        buffer.putShort((short) keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.putLong(total);
+        buffer.putInt(content.size());
+        int i = 0;
+        for (MemberTeamDto dto : content) {
+            buffer.putLong(dto.getMemberId());
+            putString(buffer, strings.get(i++));
+            buffer.putInt(dto.getAge());
+            buffer.putLong(dto.getTeamId() == null ? NO_TEAM : dto.getTeamId());
+            putString(buffer, strings.get(i++));
+        }
+        return buffer.array();
+    }
+
+    //entry 시작 위치의 header 만 읽는다. (payload 는 읽지 않음)
+    static int length(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset);
+    }
+
+    static long dataVersion(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + Integer.BYTES);
+    }
+
+    static String key(ByteBuffer buffer, int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + Integer.BYTES + Long.BYTES);
+        byte[] bytes = new byte[view.getShort()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static CachedPage decode(ByteBuffer buffer, int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + Integer.BYTES + Long.BYTES);
+        short keyLength = view.getShort();
+        view.position(view.position() + keyLength);
+
+        long total = view.getLong();
+        int rows = view.getInt();
+        List<MemberTeamDto> content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long memberId = view.getLong();
+            String username = getString(view);
+            int age = view.getInt();
+            long teamId = view.getLong();
+            String teamName = getString(view);
+            content.add(new MemberTeamDto(memberId, username, age, teamId == NO_TEAM ? null : teamId, teamName));
+        }
+        return new CachedPage(total, content);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(byte[] bytes) {
+        return Short.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer view) {
+        short length = view.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    record CachedPage(long total, List<MemberTeamDto> content) {
+    }
+}
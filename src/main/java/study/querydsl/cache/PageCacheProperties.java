@@ -0,0 +1,21 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.page-cache")
+public class PageCacheProperties {
+
+    private boolean enabled = false;
+
+    //재시작 후에도 남아있는 캐시 파일
+    private Path file = Path.of(System.getProperty("java.io.tmpdir"), "member-page-cache.bin");
+
+    //파일(mmap) 크기. 가득 차면 비우고 다시 쓴다.
+    private DataSize size = DataSize.ofMegabytes(64);
+}
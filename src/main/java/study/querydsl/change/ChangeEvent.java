@@ -0,0 +1,54 @@
+package study.querydsl.change;
+
+import com.querydsl.core.types.Predicate;
+
+import java.util.Set;
+
+/**
+ * Member / Team 변경 이벤트. 커밋된 이후에만 발행된다.
+ * version 은 전체 피드에서 단조 증가한다. (발행 전에는 0)
+ *
+ * @param id         단건 변경일 때 엔티티 id, bulk/reset 이면 null
+ * @param fields     변경된 필드 이름 (insert/delete 는 전체 필드)
+ * @param predicate  bulk 실행의 where 조건 (조건이 없으면 null = 전체 행)
+ */
+public record ChangeEvent(long version, Class<?> entityType, Object id, ChangeOperation operation,
+                          Set<String> fields, Predicate predicate) {
+
+    public static ChangeEvent of(Class<?> entityType, Object id, ChangeOperation operation, Set<String> fields) {
+        return new ChangeEvent(0, entityType, id, operation, Set.copyOf(fields), null);
+    }
+
+    public static ChangeEvent bulk(Class<?> entityType, ChangeOperation operation, Set<String> fields, Predicate predicate) {
+        return new ChangeEvent(0, entityType, null, operation, Set.copyOf(fields), predicate);
+    }
+
+    static ChangeEvent reset(long version) {
+        return new ChangeEvent(version, null, null, ChangeOperation.RESET, Set.of(), null);
+    }
+
+    ChangeEvent withVersion(long version) {
+        return new ChangeEvent(version, entityType, id, operation, fields, predicate);
+    }
+
+    public boolean isBulk() {
+        return operation == ChangeOperation.BULK_UPDATE || operation == ChangeOperation.BULK_DELETE
+                || operation == ChangeOperation.BULK_INSERT;
+    }
+
+    public boolean isReset() {
+        return operation == ChangeOperation.RESET;
+    }
+
+    //캐시 무효화 판단용: 이 이벤트가 entityType 의 field 에 영향을 줄 수 있는지
+    public boolean affects(Class<?> type, String field) {
+        if (isReset()) {
+            return true;
+        }
+        if (!type.equals(entityType)) {
+            return false;
+        }
+        //삭제는 모든 필드에 영향
+        return operation == ChangeOperation.DELETE || operation == ChangeOperation.BULK_DELETE || fields.contains(field);
+    }
+}
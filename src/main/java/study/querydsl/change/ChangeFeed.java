@@ -0,0 +1,74 @@
+package study.querydsl.change;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Member / Team 변경 피드.
+ * ChangeRecorder 가 트랜잭션 커밋 후에 publish 하고, 구독자는 각자 스레드에서 순서대로 받는다.
+ */
+@Component
+public class ChangeFeed {
+
+    private final ChangeFeedProperties properties;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    //version 부여와 큐에 넣는 순서를 같게 하기 위한 lock (구독자가 version 순서대로 받도록)
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private volatile long version;
+
+    public ChangeFeed(ChangeFeedProperties properties) {
+        this.properties = properties;
+    }
+
+    public ChangeSubscription subscribe(String name, Consumer<ChangeEvent> listener) {
+        return subscribe(name, properties.getDefaultCapacity(), listener);
+    }
+
+    public ChangeSubscription subscribe(String name, int capacity, Consumer<ChangeEvent> listener) {
+        ChangeSubscription subscription = new ChangeSubscription(name, this, capacity, listener);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    void unsubscribe(ChangeSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    public void publish(List<ChangeEvent> events) {
+        long timeoutNanos = properties.getPublishTimeout().toNanos();
+        publishLock.lock();
+        try {
+            for (ChangeEvent event : events) {
+                ChangeEvent versioned = event.withVersion(++version);
+                for (ChangeSubscription subscription : subscriptions) {
+                    subscription.offer(versioned, timeoutNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    //마지막으로 발행된 이벤트의 version
+    public long getVersion() {
+        return version;
+    }
+
+    public List<ChangeSubscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(ChangeSubscription::close);
+    }
+}
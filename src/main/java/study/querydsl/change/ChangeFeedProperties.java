@@ -0,0 +1,19 @@
+package study.querydsl.change;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.change-feed")
+public class ChangeFeedProperties {
+
+    //구독자 별 버퍼 크기 기본값
+    private int defaultCapacity = 1024;
+
+    //버퍼가 가득 찼을 때 커밋한 스레드가 기다리는 최대 시간 (backpressure).
+    //넘으면 그 구독자에게는 이벤트 대신 RESET 을 보낸다.
+    private Duration publishTimeout = Duration.ofMillis(10);
+}
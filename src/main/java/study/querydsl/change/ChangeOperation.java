@@ -0,0 +1,11 @@
+package study.querydsl.change;
+
+public enum ChangeOperation {
+    INSERT,
+    UPDATE,
+    DELETE,
+    BULK_UPDATE, //queryFactory.update(..) - 대상 행을 모르므로 predicate 로 표현
+    BULK_DELETE,
+    BULK_INSERT, //JDBC 로 직접 넣은 대량 insert (MemberImporter)
+    RESET //구독자 버퍼가 넘쳐서 이벤트가 유실됨 -> 파생 데이터를 전부 다시 만들어야 한다.
+}
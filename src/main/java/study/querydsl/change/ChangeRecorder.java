@@ -0,0 +1,90 @@
+package study.querydsl.change;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 트랜잭션 안에서 생긴 변경을 모아두었다가 커밋된 후에만 ChangeFeed 로 발행한다. (outbox 와 같은 역할)
+ * 롤백되면 버린다. 트랜잭션 밖이면 (auto commit) 바로 발행한다.
+ * DB 의 데이터 버전(DataVersionCounter)은 변경이 있었던 트랜잭션마다 한 번, 커밋 직전 마지막 statement 로 올린다.
+ * (hibernate 의 before transaction completion: 커밋 시 flush 가 끝난 뒤에 실행되므로 그 flush 로 생긴 변경도 포함된다.
+ * 변경 도중에 올리면 data_version 행 lock 을 커밋까지 잡아서 모든 쓰기 트랜잭션이 그 동안 줄을 서고,
+ * member 행 lock 과 순서가 달라 교착 상태가 생길 수 있다)
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeRecorder {
+
+    private static final Set<Class<?>> TRACKED = Set.of(Member.class, Team.class);
+
+    private final ChangeFeed changeFeed;
+    private final DataVersionCounter dataVersionCounter;
+
+    public boolean isTracked(Class<?> entityType) {
+        return TRACKED.contains(entityType);
+    }
+
+    //session: 변경을 실행한 hibernate 세션 (커밋 직전에 같은 커넥션으로 버전을 올린다)
+    public void record(ChangeEvent event, SessionImplementor session) {
+        record(event, 1, session);
+    }
+
+    //rows: 변경된 행 수 (bulk 실행 결과)
+    public void record(ChangeEvent event, long rows, SessionImplementor session) {
+        if (!isTracked(event.entityType())) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dataVersionCounter.increment(changesOf(event, rows));
+            changeFeed.publish(List.of(event));
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+            PendingChanges registered = pending;
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing ->
+                    completing.doWork(connection -> dataVersionCounter.increment(connection, registered.changes)));
+        }
+        pending.events.add(event);
+        pending.changes = pending.changes.plus(changesOf(event, rows));
+    }
+
+    private static DataVersionCounter.Changes changesOf(ChangeEvent event, long rows) {
+        if (event.entityType() == Member.class) {
+            return DataVersionCounter.Changes.members(rows);
+        }
+        //새 팀에는 아직 회원이 없다.
+        boolean insert = event.operation() == ChangeOperation.INSERT || event.operation() == ChangeOperation.BULK_INSERT;
+        return insert ? DataVersionCounter.Changes.NONE : new DataVersionCounter.Changes(0, rows);
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final List<ChangeEvent> events = new ArrayList<>();
+        private DataVersionCounter.Changes changes = DataVersionCounter.Changes.NONE;
+
+        @Override
+        public void afterCommit() {
+            changeFeed.publish(events);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangeRecorder.this);
+        }
+    }
+}
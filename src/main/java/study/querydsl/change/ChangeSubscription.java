@@ -0,0 +1,106 @@
+package study.querydsl.change;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 구독자 하나. 크기가 정해진 큐와 전용 스레드로 이벤트를 비동기로 전달한다.
+ * 큐가 넘치면 밀린 이벤트를 버리고 RESET 이벤트를 한번 전달한다.
+ */
+@Slf4j
+public class ChangeSubscription implements AutoCloseable {
+
+    private final String name;
+    private final ChangeFeed feed;
+    private final Consumer<ChangeEvent> listener;
+    private final BlockingQueue<ChangeEvent> queue;
+    private final Thread worker;
+
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    ChangeSubscription(String name, ChangeFeed feed, int capacity, Consumer<ChangeEvent> listener) {
+        this.name = name;
+        this.feed = feed;
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::run, "change-feed-" + name);
+        this.worker.setDaemon(true);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    //발행 스레드에서 호출. timeout 안에 자리가 안 나면 overflow 로 표시한다.
+    void offer(ChangeEvent event, long timeoutNanos) throws InterruptedException {
+        if (overflowed.get()) {
+            return; //어차피 RESET 으로 대체된다.
+        }
+        if (!queue.offer(event, timeoutNanos, TimeUnit.NANOSECONDS)) {
+            overflowed.set(true);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (overflowed.compareAndSet(true, false)) {
+                    //먼저 비우고 version 을 읽는다. 그 사이 들어온 이벤트는 중복으로 한번 더 전달될 뿐 유실되지 않는다.
+                    queue.clear();
+                    resets.increment();
+                    deliver(ChangeEvent.reset(feed.getVersion()));
+                    continue;
+                }
+                ChangeEvent event = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    deliver(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void deliver(ChangeEvent event) {
+        try {
+            listener.accept(event);
+            delivered.increment();
+        } catch (RuntimeException e) {
+            log.warn("change feed subscriber {} failed on {}", name, event, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getResets() {
+        return resets.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        feed.unsubscribe(this);
+    }
+}
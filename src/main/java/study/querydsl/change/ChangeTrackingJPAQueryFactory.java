@@ -0,0 +1,142 @@
+package study.querydsl.change;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import study.querydsl.deadline.DeadlineAwareJPAQueryFactory;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * bulk update/delete 는 영속성 컨텍스트와 엔티티 이벤트를 거치지 않는다.
+ * 실행할 때 대상 엔티티, set 한 필드, where 조건을 BULK_* 이벤트로 ChangeRecorder 에 남긴다.
+ * 조회 쿼리는 요청 제한 시간(RequestDeadline)을 query timeout 으로 건다.
+ */
+public class ChangeTrackingJPAQueryFactory extends DeadlineAwareJPAQueryFactory {
+
+    private final EntityManager em;
+    private final ChangeRecorder changeRecorder;
+
+    public ChangeTrackingJPAQueryFactory(EntityManager em, ChangeRecorder changeRecorder) {
+        super(em);
+        this.em = em;
+        this.changeRecorder = changeRecorder;
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new TrackingUpdateClause(em, path, changeRecorder);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new TrackingDeleteClause(em, path, changeRecorder);
+    }
+
+    private static class TrackingUpdateClause extends JPAUpdateClause {
+
+        private final EntityManager em;
+        private final EntityPath<?> entity;
+        private final ChangeRecorder changeRecorder;
+        private final Set<String> fields = new LinkedHashSet<>();
+        private final List<Predicate> where = new ArrayList<>();
+
+        TrackingUpdateClause(EntityManager em, EntityPath<?> entity, ChangeRecorder changeRecorder) {
+            super(em, entity);
+            this.em = em;
+            this.entity = entity;
+            this.changeRecorder = changeRecorder;
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, T value) {
+            track(path);
+            return super.set(path, value);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+            track(path);
+            return super.set(path, expression);
+        }
+
+        @Override
+        public <T> JPAUpdateClause setNull(Path<T> path) {
+            track(path);
+            return super.setNull(path);
+        }
+
+        @Override
+        public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+            paths.forEach(this::track);
+            return super.set(paths, values);
+        }
+
+        //username_lower 는 DB 가 username 으로 다시 계산하므로 같이 바뀐 필드로 기록한다.
+        private void track(Path<?> path) {
+            String name = path.getMetadata().getName();
+            fields.add(name);
+            if (Member.class.equals(entity.getType()) && "username".equals(name)) {
+                fields.add("usernameLower");
+            }
+        }
+
+        @Override
+        public JPAUpdateClause where(Predicate... o) {
+            where.addAll(Arrays.asList(o));
+            return super.where(o);
+        }
+
+        @Override
+        public long execute() {
+            long count = super.execute();
+            if (count > 0) {
+                changeRecorder.record(ChangeEvent.bulk(entity.getType(), ChangeOperation.BULK_UPDATE, fields,
+                        ExpressionUtils.allOf(where)), count, em.unwrap(SessionImplementor.class));
+            }
+            return count;
+        }
+    }
+
+    private static class TrackingDeleteClause extends JPADeleteClause {
+
+        private final EntityManager em;
+        private final EntityPath<?> entity;
+        private final ChangeRecorder changeRecorder;
+        private final List<Predicate> where = new ArrayList<>();
+
+        TrackingDeleteClause(EntityManager em, EntityPath<?> entity, ChangeRecorder changeRecorder) {
+            super(em, entity);
+            this.em = em;
+            this.entity = entity;
+            this.changeRecorder = changeRecorder;
+        }
+
+        @Override
+        public JPADeleteClause where(Predicate... o) {
+            where.addAll(Arrays.asList(o));
+            return super.where(o);
+        }
+
+        @Override
+        public long execute() {
+            long count = super.execute();
+            if (count > 0) {
+                changeRecorder.record(ChangeEvent.bulk(entity.getType(), ChangeOperation.BULK_DELETE, Set.of(),
+                        ExpressionUtils.allOf(where)), count, em.unwrap(SessionImplementor.class));
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.change;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.DataVersion;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * DB 에 저장된 Member/Team 데이터 버전 (data_version 행).
+ * ChangeFeed 의 version 은 프로세스 안에서만 의미가 있지만, 이 값은 같은 DB 를 쓰는 모든 인스턴스가 공유하고 재시작 후에도 남는다.
+ * 쓰기 트랜잭션 안에서 올리므로 커밋되는 순간 다른 트랜잭션에서도 보인다. (페이지 캐시, page token 의 유효성 판단용)
+ * 버전과 같이 바뀐 member 행 수 / team 수도 누적한다. (Changes: 통계를 집계한 뒤 데이터가 얼마나 달라졌는지)
+ * 애플리케이션을 거치지 않고 DB 를 직접 바꾸면 올라가지 않는다.
+ */
+@Component
+@DependsOn("entityManagerFactory") //data_version 테이블(ddl-auto)이 만들어진 뒤에 행을 넣는다.
+public class DataVersionCounter {
+
+    private static final String SELECT = "select epoch, version from data_version where id = ?";
+    private static final String SELECT_CHANGES = "select changed_members, changed_teams from data_version where id = ?";
+    private static final String INSERT =
+            "insert into data_version (id, epoch, version, changed_members, changed_teams) values (?, ?, 0, 0, 0)";
+    private static final String INCREMENT = "update data_version"
+            + " set version = version + 1, changed_members = changed_members + ?, changed_teams = changed_teams + ?"
+            + " where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataVersionCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void init() {
+        if (jdbcTemplate.queryForList(SELECT, DataVersion.ID).isEmpty()) {
+            try {
+                jdbcTemplate.update(INSERT, DataVersion.ID, new SecureRandom().nextLong());
+            } catch (DuplicateKeyException e) {
+                //다른 인스턴스가 먼저 만들었다.
+            }
+        }
+    }
+
+    public Stamp current() {
+        return jdbcTemplate.queryForObject(SELECT, (rs, rowNum) -> new Stamp(rs.getLong(1), rs.getLong(2)), DataVersion.ID);
+    }
+
+    public Changes changes() {
+        return jdbcTemplate.queryForObject(SELECT_CHANGES, (rs, rowNum) -> new Changes(rs.getLong(1), rs.getLong(2)),
+                DataVersion.ID);
+    }
+
+    //진행 중인 스프링 트랜잭션이 있으면 그 트랜잭션의 커넥션으로 올린다. (커밋/롤백을 같이 한다)
+    public void increment(Changes changes) {
+        jdbcTemplate.update(INCREMENT, changes.members(), changes.teams(), DataVersion.ID);
+    }
+
+    //JDBC 로 직접 쓰는 경우 (MemberImporter 등): 같은 커넥션, 커밋 직전에 호출
+    public void increment(Connection connection, Changes changes) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(INCREMENT)) {
+            update.setLong(1, changes.members());
+            update.setLong(2, changes.teams());
+            update.setLong(3, DataVersion.ID);
+            update.executeUpdate();
+        }
+    }
+
+    /**
+     * @param epoch   data_version 행을 만들 때의 랜덤 값
+     * @param version 커밋된 Member/Team 쓰기 트랜잭션 수
+     */
+    public record Stamp(long epoch, long version) {
+    }
+
+    /**
+     * @param members 바뀐 member 행 수 (insert/update/delete, bulk 는 영향받은 행 수)
+     * @param teams   수정/삭제된 team 수 (새 팀은 회원이 없으므로 세지 않는다)
+     */
+    public record Changes(long members, long teams) {
+
+        public static final Changes NONE = new Changes(0, 0);
+
+        public static Changes members(long members) {
+            return new Changes(members, 0);
+        }
+
+        public Changes plus(Changes other) {
+            return new Changes(members + other.members, teams + other.teams);
+        }
+
+        public Changes minus(Changes other) {
+            return new Changes(members - other.members, teams - other.teams);
+        }
+    }
+}
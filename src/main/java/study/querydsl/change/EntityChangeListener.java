@@ -0,0 +1,86 @@
+package study.querydsl.change;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 엔티티 단건 insert/update/delete 를 hibernate 이벤트로 받아서 ChangeRecorder 에 넘긴다.
+ * bulk 연산(queryFactory.update/delete)은 이벤트가 없으므로 ChangeTrackingJPAQueryFactory 에서 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChangeRecorder changeRecorder;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.INSERT, allFields(event.getPersister()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        //dirty 체크 없이 update 된 경우(merge 등)에는 전체 필드가 바뀐 것으로 본다.
+        Set<String> fields = dirty == null ? allFields(event.getPersister()) : fieldsOf(event.getPersister(), dirty);
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.UPDATE, fields);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.DELETE, allFields(event.getPersister()));
+    }
+
+    //커밋 후 처리는 ChangeRecorder 가 spring 트랜잭션 기준으로 한다.
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Object entity, Object id, ChangeOperation operation, Set<String> fields) {
+        if (changeRecorder.isTracked(entity.getClass())) {
+            changeRecorder.record(ChangeEvent.of(entity.getClass(), id, operation, fields), session);
+        }
+    }
+
+    private static Set<String> allFields(EntityPersister persister) {
+        return new LinkedHashSet<>(Arrays.asList(persister.getPropertyNames()));
+    }
+
+    private static Set<String> fieldsOf(EntityPersister persister, int[] indexes) {
+        String[] names = persister.getPropertyNames();
+        Set<String> fields = new LinkedHashSet<>();
+        for (int index : indexes) {
+            fields.add(names[index]);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.deadline.DeadlineInterceptor;
+import study.querydsl.deadline.DeadlineProperties;
+import study.querydsl.limiter.ConcurrencyLimitInterceptor;
+import study.querydsl.limiter.ConcurrencyLimiterProperties;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimiterProperties limiterProperties;
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+    private final DeadlineProperties deadlineProperties;
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (limiterProperties.isEnabled()) {
+            registry.addInterceptor(concurrencyLimitInterceptor)
+                    .addPathPatterns("/v*/members");
+        }
+        //limiter 대기 시간도 제한 시간에 포함되지 않도록 limiter 통과 후 시작
+        if (deadlineProperties.isEnabled()) {
+            registry.addInterceptor(deadlineInterceptor)
+                    .addPathPatterns("/v*/members", "/v*/members/**");
+        }
+    }
+}
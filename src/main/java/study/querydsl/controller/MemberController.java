@@ -2,15 +2,25 @@ package study.querydsl.controller;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.CappedList;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.dto.TokenPage;
 import study.querydsl.repository.MemberJpaRepository;
-import study.querydsl.repository.MemberRepository;
-import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.service.MemberHistogramService;
+import study.querydsl.service.MemberSearchService;
 
 import java.util.List;
 
@@ -18,22 +28,78 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final String PAGE_TOKEN_HEADER = "X-Page-Token";
+
     private final MemberJpaRepository memberJpaRepository;
 
-    private final MemberRepository memberRepository;
+    private final MemberSearchService memberSearchService; //동일 검색 동시 요청은 한 번만 조회
+
+    private final MemberHistogramService memberHistogramService;
+
+    private final SpringDataWebProperties springDataWebProperties; //pageable.max-page-size
 
+    //페이징이 없으므로 최대 cap 건까지만 응답하고, 잘린 경우 헤더로 알려주고 페이징 API(/v3) 로 안내한다.
+    //응답은 id 순 첫 cap 건이므로 다음은 /v3 의 cap 건 이후 페이지 (정렬 없음 = id 순)
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public ResponseEntity<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition) {
+        CappedList<MemberTeamDto> result = memberJpaRepository.search(condition);
+        if (!result.isTruncated()) {
+            return ResponseEntity.ok(result);
+        }
+        int size = nextPageSize(result.getCap());
+        int page = result.getCap() / size + (springDataWebProperties.getPageable().isOneIndexedParameters() ? 1 : 0);
+        String pagedUri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replacePath("/v3/members")
+                .replaceQueryParam("page", page)
+                .replaceQueryParam("size", size)
+                .replaceQueryParam("sort")
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header("X-Result-Truncated", "true")
+                .header("X-Result-Cap", String.valueOf(result.getCap()))
+                .header("Link", "<" + pagedUri + ">; rel=\"next\"")
+                .body(result);
+    }
+
+    //size 가 max-page-size 보다 크면 잘려서 다른 페이지를 가리키므로, cap 의 약수 중 max-page-size 이하인 가장 큰 값 (page = cap / size)
+    private int nextPageSize(int cap) {
+        int maxPageSize = springDataWebProperties.getPageable().getMaxPageSize();
+        for (int size = Math.min(cap, maxPageSize); size > 1; size--) {
+            if (cap % size == 0) {
+                return size;
+            }
+        }
+        return 1;
     }
 
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+        return memberSearchService.searchPageSimple(condition, pageable);
     }
 
+    //countMode=APPROXIMATE 이면 전체 개수를 통계 기반 추정치로 응답 (totalApproximate, totalErrorBound)
+    //응답 헤더의 X-Page-Token 을 다음 페이지 요청 헤더로 넘기면 같은 조건 + 데이터 변경이 없을 때 count 를 다시 하지 않는다.
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public ResponseEntity<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable, PageSearchOptions options,
+                                                              @RequestHeader(name = PAGE_TOKEN_HEADER, required = false) String pageToken) {
+        TokenPage<MemberTeamDto> result = memberSearchService.searchPageComplex(condition, pageable, options, pageToken);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.pageToken() != null) {
+            response.header(PAGE_TOKEN_HEADER, result.pageToken());
+        }
+        return response.body(result.page());
+    }
+
+    //무한 스크롤: count 없이 hasNext 만 응답 (SQL 1회)
+    @GetMapping("/v4/members")
+    public Slice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearchService.searchSlice(condition, pageable);
+    }
+
+    //팀별 나이 구간별 회원 수 (ex: /v1/members/age-histogram?boundaries=20,30)
+    @GetMapping("/v1/members/age-histogram")
+    public List<AgeBucketCountDto> ageHistogram(@RequestParam(required = false) List<Integer> boundaries) {
+        return memberHistogramService.ageHistogram(boundaries);
     }
 }
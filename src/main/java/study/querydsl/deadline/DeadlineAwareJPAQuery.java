@@ -0,0 +1,47 @@
+package study.querydsl.deadline;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * 실행 직전에 현재 요청의 남은 시간을 query timeout 으로 거는 JPAQuery.
+ * 제한 시각이 이미 지났으면 쿼리를 실행하지 않고 DeadlineExceededException.
+ * 요청 밖(스케줄러, 배치 등)에서는 일반 JPAQuery 와 같다.
+ */
+public class DeadlineAwareJPAQuery<T> extends JPAQuery<T> {
+
+    public DeadlineAwareJPAQuery(EntityManager em) {
+        super(em);
+    }
+
+    public DeadlineAwareJPAQuery(EntityManager em, JPQLTemplates templates) {
+        super(em, templates);
+    }
+
+    public DeadlineAwareJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata) {
+        super(em, templates, metadata);
+    }
+
+    //fetch, fetchCount, stream 등 모든 실행이 여기를 거친다.
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        Query query = super.createQuery(modifiers, forCount);
+        RequestDeadline.current().ifPresent(deadline -> {
+            deadline.check();
+            query.setHint(HibernateHints.HINT_TIMEOUT, deadline.statementTimeoutSeconds());
+        });
+        return query;
+    }
+
+    @Override
+    public DeadlineAwareJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        DeadlineAwareJPAQuery<T> query = new DeadlineAwareJPAQuery<>(entityManager, templates, getMetadata().clone());
+        query.clone(this);
+        return query;
+    }
+}
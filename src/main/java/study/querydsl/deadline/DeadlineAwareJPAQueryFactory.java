@@ -0,0 +1,21 @@
+package study.querydsl.deadline;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+
+//select / selectFrom / from 으로 만드는 모든 쿼리가 DeadlineAwareJPAQuery
+public class DeadlineAwareJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+
+    public DeadlineAwareJPAQueryFactory(EntityManager em) {
+        super(em);
+        this.em = em;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new DeadlineAwareJPAQuery<Void>(em);
+    }
+}
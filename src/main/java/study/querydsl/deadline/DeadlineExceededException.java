@@ -0,0 +1,12 @@
+package study.querydsl.deadline;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(long overdueMillis) {
+        super("request deadline exceeded by " + overdueMillis + "ms");
+    }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+/**
+ * 요청마다 제한 시각을 정한다. (헤더 값, 없으면 엔드포인트 기본값. minTimeout ~ maxTimeout 범위로 맞춘다)
+ * 제한 시간 초과는 member.search.deadline.exceeded{endpoint, outcome=timeout|partial} 로 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeadlineInterceptor implements HandlerInterceptor {
+
+    private static final String SCOPE = DeadlineInterceptor.class.getName() + ".SCOPE";
+
+    private final DeadlineProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        DeadlineProperties.Endpoint endpoint = properties.forEndpoint(endpoint(request));
+        request.setAttribute(SCOPE, RequestDeadline.start(timeout(request, endpoint), endpoint.getOnTimeout()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(SCOPE) instanceof RequestDeadline.Scope scope)) {
+            return;
+        }
+        try {
+            String outcome = null;
+            if (response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value() || (ex != null && RequestDeadline.isTimeout(ex))) {
+                outcome = "timeout";
+            } else if (RequestDeadline.current().map(RequestDeadline::isPartial).orElse(false)) {
+                outcome = "partial";
+            }
+            if (outcome != null) {
+                Counter.builder("member.search.deadline.exceeded")
+                        .tag("endpoint", endpoint(request))
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        } finally {
+            scope.close();
+        }
+    }
+
+    private Duration timeout(HttpServletRequest request, DeadlineProperties.Endpoint endpoint) {
+        String header = request.getHeader(properties.getHeader());
+        Duration timeout = endpoint.getTimeout();
+        if (header != null) {
+            try {
+                timeout = Duration.ofMillis(Long.parseLong(header.trim()));
+            } catch (NumberFormatException e) {
+                //잘못된 값이면 기본값
+            }
+        }
+        if (timeout.compareTo(properties.getMinTimeout()) < 0) {
+            return properties.getMinTimeout();
+        }
+        return timeout.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : timeout;
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
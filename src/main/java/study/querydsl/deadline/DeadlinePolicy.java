@@ -0,0 +1,9 @@
+package study.querydsl.deadline;
+
+//제한 시간이 지났을 때
+public enum DeadlinePolicy {
+    //504 응답
+    FAIL,
+    //가능하면 부분 결과 (ex: 페이지 content 는 주고 전체 개수는 추정치). 불가능하면 504
+    PARTIAL
+}
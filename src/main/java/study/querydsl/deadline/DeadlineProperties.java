@@ -0,0 +1,41 @@
+package study.querydsl.deadline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+
+    //클라이언트가 기다릴 시간 (밀리초). 없으면 엔드포인트 기본값
+    private String header = "X-Request-Timeout";
+
+    //헤더로 이보다 길게 요청해도 이 값까지만
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    //헤더로 이보다 짧게 (0, 음수 포함) 요청해도 이 값은 보장
+    private Duration minTimeout = Duration.ofMillis(100);
+
+    //엔드포인트 별 설정이 없으면 기본값 사용
+    private Endpoint defaults = new Endpoint();
+
+    //key: 요청 경로 패턴 (yml 에서는 "[/v3/members]" 형태로 작성)
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    public Endpoint forEndpoint(String pattern) {
+        return endpoints.getOrDefault(pattern, defaults);
+    }
+
+    @Getter @Setter
+    public static class Endpoint {
+        private Duration timeout = Duration.ofSeconds(5);
+        private DeadlinePolicy onTimeout = DeadlinePolicy.FAIL;
+    }
+}
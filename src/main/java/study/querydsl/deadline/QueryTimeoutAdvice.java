@@ -0,0 +1,20 @@
+package study.querydsl.deadline;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+//DB query timeout (남은 시간으로 건 statement timeout 포함) -> 504. DeadlineExceededException 은 @ResponseStatus 로 처리
+@RestControllerAdvice
+public class QueryTimeoutAdvice {
+
+    @ExceptionHandler({
+            org.springframework.dao.QueryTimeoutException.class,
+            jakarta.persistence.QueryTimeoutException.class,
+            org.hibernate.QueryTimeoutException.class
+    })
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public void queryTimeout() {
+    }
+}
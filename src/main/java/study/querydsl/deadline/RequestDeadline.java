@@ -0,0 +1,114 @@
+package study.querydsl.deadline;
+
+import jakarta.persistence.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 현재 요청의 제한 시각. DeadlineInterceptor 가 요청 스레드에 설정하고,
+ * DeadlineAwareJPAQuery 가 쿼리마다 남은 시간을 JDBC query timeout 으로 건다.
+ * 다른 스레드에서 실행되는 작업은 propagate 로 감싸야 같은 제한 시각을 쓴다.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final DeadlinePolicy policy;
+    private volatile boolean partial;
+
+    private RequestDeadline(long deadlineNanos, DeadlinePolicy policy) {
+        this.deadlineNanos = deadlineNanos;
+        this.policy = policy;
+    }
+
+    //현재 스레드에 제한 시각 설정. 반환된 Scope 를 닫으면 이전 상태로 돌아간다.
+    public static Scope start(Duration timeout, DeadlinePolicy policy) {
+        return bind(new RequestDeadline(System.nanoTime() + timeout.toNanos(), policy));
+    }
+
+    public static Optional<RequestDeadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    //호출 스레드의 제한 시각을 작업 스레드에서도 사용
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        RequestDeadline captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = bind(captured)) {
+                return task.call();
+            }
+        };
+    }
+
+    //제한 시간 때문에 실패한 것인지 (DB query timeout 포함)
+    public static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineExceededException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof org.hibernate.QueryTimeoutException
+                    || cause instanceof org.springframework.dao.QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Scope bind(RequestDeadline deadline) {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    //이미 지났으면 남은 작업을 시작하지 않는다.
+    public void check() {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException(TimeUnit.NANOSECONDS.toMillis(-remaining));
+        }
+    }
+
+    //JDBC Statement.setQueryTimeout 은 초 단위이고 0 은 "제한 없음"이므로 올림해서 최소 1초
+    public int statementTimeoutSeconds() {
+        long remaining = Math.max(1, remainingMillis());
+        return (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+    }
+
+    public boolean allowsPartialResults() {
+        return policy == DeadlinePolicy.PARTIAL;
+    }
+
+    //부분 결과로 응답했음 (metric 용)
+    public void markPartial() {
+        partial = true;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
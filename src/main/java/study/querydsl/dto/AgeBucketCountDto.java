@@ -0,0 +1,13 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AgeBucketCountDto {
+
+    private String teamName; //팀이 없는 회원은 null
+    private String ageRange;
+    private long count;
+}
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+/**
+ * 나이 구간 경계. [20, 30] 이면 "0~20", "21~30", "31~" 세 구간 (경계값은 아래 구간에 포함)
+ * 히스토그램 캐시 key 로 쓰이므로 불변이다.
+ */
+public record AgeBuckets(List<Integer> boundaries) {
+
+    public AgeBuckets {
+        boundaries = List.copyOf(boundaries);
+    }
+
+    public int size() {
+        return boundaries.size() + 1;
+    }
+
+    public String label(int bucket) {
+        int from = bucket == 0 ? 0 : boundaries.get(bucket - 1) + 1;
+        if (bucket == boundaries.size()) {
+            return from + "~";
+        }
+        return from + "~" + boundaries.get(bucket);
+    }
+}
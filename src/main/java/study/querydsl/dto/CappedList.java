@@ -0,0 +1,31 @@
+package study.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//최대 행 수(cap)로 잘린 조회 결과. truncated 가 true 면 실제로는 더 많은 행이 있다.
+public class CappedList<T> extends ArrayList<T> {
+
+    private final int cap;
+    private final boolean truncated;
+
+    private CappedList(List<T> rows, int cap, boolean truncated) {
+        super(rows);
+        this.cap = cap;
+        this.truncated = truncated;
+    }
+
+    //rows 는 cap + 1 개까지 조회한 결과
+    public static <T> CappedList<T> of(List<T> rows, int cap) {
+        boolean truncated = rows.size() > cap;
+        return new CappedList<>(truncated ? rows.subList(0, cap) : rows, cap, truncated);
+    }
+
+    public int getCap() {
+        return cap;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
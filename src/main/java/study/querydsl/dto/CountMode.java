@@ -0,0 +1,6 @@
+package study.querydsl.dto;
+
+public enum CountMode {
+    EXACT, //count 쿼리 실행
+    APPROXIMATE //통계 기반 추정치 사용 (오차 범위 포함)
+}
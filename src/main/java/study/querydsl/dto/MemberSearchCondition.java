@@ -7,6 +7,7 @@ public class MemberSearchCondition {
     //회원명, 팀명, 나이(ageGeo, ageLoe)
 
     private String username;
+    private boolean usernameIgnoreCase; //true 면 username 을 대소문자 무시로 비교
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
@@ -0,0 +1,6 @@
+package study.querydsl.dto;
+
+public enum PageFetchStrategy {
+    DIRECT, //조건 + offset/limit 으로 member, team 을 바로 조회
+    DEFERRED_JOIN //id 만 먼저 offset/limit 으로 조회한 뒤, 해당 id 들만 projection 조회 (깊은 페이지용)
+}
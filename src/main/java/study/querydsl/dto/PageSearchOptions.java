@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Setter;
+
+//페이징 조회 방식 옵션 (요청 파라미터로 바인딩)
+@Data
+public class PageSearchOptions {
+
+    private CountMode countMode = CountMode.EXACT;
+    private PageFetchStrategy fetchStrategy = PageFetchStrategy.DIRECT;
+
+    //검증된 page token 의 전체 개수. 있으면 count 쿼리를 생략한다.
+    //요청 파라미터로 바인딩되지 않도록 setter 가 없다.
+    @Setter(AccessLevel.NONE)
+    private Long knownTotal;
+
+    public PageSearchOptions withKnownTotal(long total) {
+        PageSearchOptions copy = new PageSearchOptions();
+        copy.setCountMode(countMode);
+        copy.setFetchStrategy(fetchStrategy);
+        copy.knownTotal = total;
+        return copy;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+//totalElements 가 추정치일 수 있는 Page (응답에 totalApproximate, totalErrorBound 추가)
+public class SearchPage<T> extends PageImpl<T> {
+
+    private final boolean totalApproximate;
+    private final long totalErrorBound;
+
+    public SearchPage(List<T> content, Pageable pageable, long total, boolean totalApproximate, long totalErrorBound) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+        this.totalErrorBound = totalErrorBound;
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+
+    //추정치 기준 +- 오차 범위 (정확한 값이면 0, 알 수 없으면 -1)
+    public long getTotalErrorBound() {
+        return totalErrorBound;
+    }
+}
@@ -0,0 +1,7 @@
+package study.querydsl.dto;
+
+import org.springframework.data.domain.Page;
+
+//페이지 + 다음 요청에 넘길 page token (전체 개수를 재사용할 수 없으면 null)
+public record TokenPage<T>(Page<T> page, String pageToken) {
+}
@@ -0,0 +1,35 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Member/Team 데이터 버전 (행 1개). Member/Team 을 바꾸는 트랜잭션이 같이 올린다. (DataVersionCounter)
+ * 엔티티로 매핑해서 member/team 테이블과 같이 만들어지고 지워진다. (ddl-auto create 로 데이터가 사라지면 버전도 새로 시작)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "data_version")
+public class DataVersion {
+
+    public static final long ID = 1;
+
+    @Id
+    private Long id;
+
+    //행을 만들 때 정한 랜덤 값. 테이블이 다시 만들어지면 version 이 같아도 다른 데이터로 구별한다.
+    private long epoch;
+
+    private long version;
+
+    //커밋된 트랜잭션이 바꾼 member 행 수의 누적 (통계 추정치의 오차 범위용)
+    private long changedMembers;
+
+    //수정/삭제된 team 수의 누적 (팀 이름이 바뀌면 그 팀 회원이 모두 다른 팀으로 집계된다)
+    private long changedTeams;
+}
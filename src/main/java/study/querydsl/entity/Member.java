@@ -2,17 +2,43 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
+import java.util.Locale;
 
 @Entity
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) //JPA는 기본생성자가 있어야 한다. (기본 생성자는 protected 로 설정)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = { //검색 조건 + 정렬(member_id 를 tiebreaker 로)을 인덱스 순서로 처리
+        @Index(name = "idx_member_username", columnList = "username, member_id"),
+        @Index(name = "idx_member_age", columnList = "age, member_id"),
+        @Index(name = "idx_member_team", columnList = "team_id, member_id"),
+        //대소문자 무시 검색용 (lower(username) 에는 인덱스를 탈 수 없으므로 정규화 컬럼에 인덱스)
+        @Index(name = "idx_member_username_lower", columnList = "username_lower, member_id")
+})
 public class Member {
 
-    @Id @GeneratedValue
+    //JDBC 로 직접 insert 하는 경우(MemberImporter)에도 같은 시퀀스에서 allocationSize 단위로 id 를 받아 쓴다.
+    public static final String ID_SEQUENCE = "member_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "member_id")
     private Long id;
     private String username;
+
+    //username 을 소문자로 정규화한 값. DB 가 계산하는 생성 컬럼이라 엔티티 수정, bulk update, JPQL, JDBC 어느 경로로 바꿔도 같이 바뀐다.
+    //insert/update 후 hibernate 가 다시 읽어온다. (직접 수정 불가)
+    @Setter(AccessLevel.NONE)
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(name = "username_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(username))")
+    private String usernameLower;
+
     private int age;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +62,11 @@ public class Member {
         }
     }
 
+    //대소문자 무시 검색 조건을 username_lower 와 같은 규칙(lower)으로 정규화
+    public static String normalize(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
     // Team이 변경된 경우 (TeamA 에서 TeamB 로 변경)
     // 1. Member.class 에서 team 값 변경 (Member 테이블의 Team 속성 값 변경)
     // 2. Team.class 에서 변경된 Member 도 변경(Team 테이블의 Member 속성 값 변경)
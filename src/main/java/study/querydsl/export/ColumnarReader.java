@@ -0,0 +1,122 @@
+package study.querydsl.export;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ColumnarWriter 가 쓴 파일을 block 단위로 읽는다. (형식은 ColumnarWriter 참고)
+ * 메모리에는 한 block 만 올린다.
+ */
+class ColumnarReader implements Closeable {
+
+    private final ReadableByteChannel channel;
+    private final List<MemberTeamDto> block = new ArrayList<>();
+    private int next;
+    private long lastMemberId;
+
+    ColumnarReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = readFully(Integer.BYTES * 2);
+        if (header == null || header.getInt() != ColumnarWriter.MAGIC) {
+            throw new IOException("not a columnar member file");
+        }
+        int format = header.getInt();
+        if (format != ColumnarWriter.FORMAT) {
+            throw new IOException("unsupported columnar format: " + format);
+        }
+    }
+
+    //다음 행, 파일 끝이면 null
+    MemberTeamDto read() throws IOException {
+        if (next == block.size() && !readBlock()) {
+            return null;
+        }
+        return block.get(next++);
+    }
+
+    private boolean readBlock() throws IOException {
+        ByteBuffer header = readFully(Integer.BYTES * 2);
+        if (header == null) {
+            return false;
+        }
+        int rowCount = header.getInt();
+        ByteBuffer in = readFully(header.getInt());
+        if (in == null) {
+            throw new EOFException("truncated block");
+        }
+
+        long[] memberIds = new long[rowCount];
+        int[] ages = new int[rowCount];
+        long[] teamIds = new long[rowCount];
+        String[] usernames = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            lastMemberId += getVarLong(in);
+            memberIds[i] = lastMemberId;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            ages[i] = (int) getVarLong(in);
+        }
+        for (int i = 0; i < rowCount; i++) {
+            teamIds[i] = getVarLong(in);
+        }
+        for (int i = 0; i < rowCount; i++) {
+            usernames[i] = getString(in);
+        }
+
+        block.clear();
+        next = 0;
+        for (int i = 0; i < rowCount; i++) {
+            Long teamId = teamIds[i] == 0 ? null : teamIds[i] - 1;
+            block.add(new MemberTeamDto(memberIds[i], usernames[i], ages[i], teamId, getString(in)));
+        }
+        return rowCount > 0 || readBlock();
+    }
+
+    private static String getString(ByteBuffer in) {
+        long length = getVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    //bytes 만큼 읽는다. 하나도 못 읽고 끝이면 null, 중간에 끝나면 EOFException
+    private ByteBuffer readFully(int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == 0) {
+                    return null;
+                }
+                throw new EOFException("truncated columnar file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
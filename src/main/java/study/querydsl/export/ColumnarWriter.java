@@ -0,0 +1,136 @@
+package study.querydsl.export;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MemberTeamDto 를 block 단위 컬럼 형식으로 쓴다.
+ * <pre>
+ * file  : [int magic "MCOL"][int format] block*
+ * block : [int rowCount][int byteLength] memberId* age* teamId* username* teamName*
+ * </pre>
+ * memberId 는 직전 값과의 차이(delta), 숫자는 모두 varint. teamId 는 null 이면 0, 아니면 id + 1.
+ * 문자열은 [varint 길이 + 1 (null 이면 0)][utf-8]
+ * 읽기는 ColumnarReader
+ */
+class ColumnarWriter implements Closeable {
+
+    static final int MAGIC = 0x4D434F4C;
+    static final int FORMAT = 1;
+
+    private final FileChannel channel;
+    private final int blockRows;
+
+    private final long[] memberIds;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final String[] usernames;
+    private final String[] teamNames;
+    private int size;
+    private long lastMemberId;
+
+    private ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+
+    ColumnarWriter(FileChannel channel, int blockRows) throws IOException {
+        this.channel = channel;
+        this.blockRows = blockRows;
+        this.memberIds = new long[blockRows];
+        this.ages = new int[blockRows];
+        this.teamIds = new long[blockRows];
+        this.usernames = new String[blockRows];
+        this.teamNames = new String[blockRows];
+
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2).putInt(MAGIC).putInt(FORMAT).flip();
+        writeFully(header);
+    }
+
+    void write(MemberTeamDto dto) throws IOException {
+        memberIds[size] = dto.getMemberId();
+        ages[size] = dto.getAge();
+        teamIds[size] = dto.getTeamId() == null ? 0 : dto.getTeamId() + 1;
+        usernames[size] = dto.getUsername();
+        teamNames[size] = dto.getTeamName();
+        if (++size == blockRows) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        out.clear();
+        out.position(Integer.BYTES * 2); //rowCount, byteLength 자리
+        for (int i = 0; i < size; i++) {
+            putVarLong(memberIds[i] - lastMemberId);
+            lastMemberId = memberIds[i];
+        }
+        for (int i = 0; i < size; i++) {
+            putVarLong(ages[i] & 0xFFFFFFFFL);
+        }
+        for (int i = 0; i < size; i++) {
+            putVarLong(teamIds[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            putString(usernames[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            putString(teamNames[i]);
+        }
+        out.putInt(0, size);
+        out.putInt(Integer.BYTES, out.position() - Integer.BYTES * 2);
+        out.flip();
+        writeFully(out);
+        size = 0;
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            putVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(bytes.length + 1L);
+        ensure(bytes.length);
+        out.put(bytes);
+    }
+
+    private void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private void ensure(int bytes) {
+        if (out.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            larger.put(out);
+            out = larger;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBlock();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ExportResult {
+
+    private final Path directory;
+    private final int partitions;
+    private final int skippedPartitions; //이전 실행에서 이미 끝난 partition
+    private final long rows;
+    private final long elapsedNanos;
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / 1e9);
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.export;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.export")
+public class MemberExportProperties {
+
+    //실행일(yyyy-MM-dd) 디렉토리가 이 아래에 만들어진다.
+    private Path directory = Path.of("build", "export");
+
+    //member.id 범위를 몇 개로 나눌지 / 동시에 몇 개를 처리할지
+    private int partitions = 16;
+    private int threads = 4;
+
+    //jdbc fetch size (커서로 한 번에 가져올 행 수)
+    private int fetchSize = 1_000;
+
+    //columnar 파일의 block 당 행 수
+    private int blockRows = 4_096;
+
+    //스케줄 (기본값 "-" 는 사용 안함)
+    private String cron = "-";
+}
@@ -0,0 +1,243 @@
+package study.querydsl.export;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원/팀 전체 export.
+ * member.id 범위를 partition 으로 나누고, partition 마다 별도 스레드 + 별도 EntityManager + 커서(stream)로 읽어서
+ * gzip CSV 와 columnar 바이너리 파일을 쓴다. 한 번에 fetch() 하지 않으므로 메모리는 partition 수와 무관하다.
+ *
+ * 끝난 partition 은 .done 파일을 남긴다. 같은 디렉토리로 다시 실행하면 끝난 partition 은 건너뛴다. (재시작)
+ * partition 범위는 처음 실행할 때 manifest 에 저장해 두고 재시작 시 그대로 사용한다.
+ */
+@Slf4j
+@Component
+public class MemberExporter {
+
+    private static final String CSV_HEADER = "member_id,username,age,team_id,team_name\n";
+    private static final int IO_BUFFER = 64 * 1024;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JPAQueryFactory queryFactory;
+    private final MemberExportProperties properties;
+
+    private final Counter exportedRows;
+    private final Timer partitionTimer;
+
+    public MemberExporter(EntityManagerFactory entityManagerFactory, JPAQueryFactory queryFactory,
+                          MemberExportProperties properties, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.queryFactory = queryFactory;
+        this.properties = properties;
+        this.exportedRows = meterRegistry.counter("member.export.rows");
+        this.partitionTimer = meterRegistry.timer("member.export.partition");
+    }
+
+    @Scheduled(cron = "${member.export.cron:-}")
+    public void nightly() {
+        ExportResult result = export(properties.getDirectory().resolve(LocalDate.now().toString()));
+        log.info("member export finished: {}", result);
+    }
+
+    public ExportResult export(Path directory) {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            List<long[]> partitions = partitions(directory);
+
+            int skipped = 0;
+            long rows = 0;
+            ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads(),
+                    new CustomizableThreadFactory("member-export-"));
+            try {
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i < partitions.size(); i++) {
+                    if (Files.exists(file(directory, i, ".done"))) {
+                        skipped++;
+                        continue;
+                    }
+                    int partition = i;
+                    long[] range = partitions.get(i);
+                    futures.add(executor.submit(() -> exportPartition(directory, partition, range[0], range[1])));
+                }
+                //실패한 partition 이 있어도 나머지는 끝까지 진행하고 .done 을 남긴다. (재실행 시 실패한 것만 다시)
+                RuntimeException failure = null;
+                for (Future<Long> future : futures) {
+                    try {
+                        rows += future.get();
+                    } catch (ExecutionException e) {
+                        failure = failure != null ? failure : new IllegalStateException("member export partition failed", e.getCause());
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            } finally {
+                executor.shutdown();
+            }
+            return new ExportResult(directory, partitions.size(), skipped, rows, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while exporting members", e);
+        }
+    }
+
+    private long exportPartition(Path directory, int partition, long fromId, long toId) throws IOException {
+        long start = System.nanoTime();
+        Path csv = file(directory, partition, ".csv.gz");
+        Path columnar = file(directory, partition, ".col");
+        Path csvTemp = file(directory, partition, ".csv.gz.tmp");
+        Path columnarTemp = file(directory, partition, ".col.tmp");
+
+        long rows = 0;
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            JPAQuery<MemberTeamDto> query = new JPAQueryFactory(em)
+                    .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.goe(fromId), member.id.lt(toId))
+                    .orderBy(member.id.asc())
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, properties.getFetchSize())
+                    .setHint(HibernateHints.HINT_READ_ONLY, true);
+
+            try (Writer csvWriter = gzipWriter(csvTemp);
+                 ColumnarWriter columnarWriter = new ColumnarWriter(open(columnarTemp), properties.getBlockRows());
+                 Stream<MemberTeamDto> stream = query.stream()) {
+                csvWriter.write(CSV_HEADER);
+                Iterator<MemberTeamDto> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    MemberTeamDto row = iterator.next();
+                    writeCsv(csvWriter, row);
+                    columnarWriter.write(row);
+                    rows++;
+                }
+            }
+            em.getTransaction().rollback(); //읽기만 했음
+        } finally {
+            em.close();
+        }
+
+        //다 쓴 뒤에 이름을 바꾸고 .done 을 남긴다. 중간에 죽으면 .tmp 만 남고 재실행 시 덮어쓴다.
+        Files.move(csvTemp, csv, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(columnarTemp, columnar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.writeString(file(directory, partition, ".done"), Long.toString(rows));
+
+        long elapsed = System.nanoTime() - start;
+        exportedRows.increment(rows);
+        partitionTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("member export partition {} [{}, {}): {} rows, {} rows/s",
+                partition, fromId, toId, rows, (long) (rows / Math.max(elapsed / 1e9, 1e-9)));
+        return rows;
+    }
+
+    //처음 실행이면 min/max id 로 범위를 나눠서 manifest 에 저장, 재시작이면 manifest 를 읽는다.
+    private List<long[]> partitions(Path directory) throws IOException {
+        Path manifest = directory.resolve("manifest");
+        List<long[]> partitions = new ArrayList<>();
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest)) {
+                String[] range = line.split(",");
+                partitions.add(new long[]{Long.parseLong(range[0]), Long.parseLong(range[1])});
+            }
+            return partitions;
+        }
+
+        Tuple bounds = queryFactory.select(member.id.min(), member.id.max()).from(member).fetchOne();
+        Long min = bounds.get(member.id.min());
+        Long max = bounds.get(member.id.max());
+        if (min != null) {
+            long span = max - min + 1;
+            int count = (int) Math.min(properties.getPartitions(), span);
+            for (int i = 0; i < count; i++) {
+                partitions.add(new long[]{min + span * i / count, min + span * (i + 1) / count});
+            }
+        }
+
+        StringBuilder lines = new StringBuilder();
+        partitions.forEach(range -> lines.append(range[0]).append(',').append(range[1]).append('\n'));
+        Files.writeString(manifest, lines);
+        return partitions;
+    }
+
+    private static Writer gzipWriter(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Channels.newOutputStream(open(path)), IO_BUFFER), StandardCharsets.UTF_8), IO_BUFFER);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static Path file(Path directory, int partition, String suffix) {
+        return directory.resolve(String.format("part-%05d%s", partition, suffix));
+    }
+
+    private static void writeCsv(Writer writer, MemberTeamDto row) throws IOException {
+        writer.write(Long.toString(row.getMemberId()));
+        writer.write(',');
+        writer.write(escape(row.getUsername()));
+        writer.write(',');
+        writer.write(Integer.toString(row.getAge()));
+        writer.write(',');
+        writer.write(row.getTeamId() == null ? "" : Long.toString(row.getTeamId()));
+        writer.write(',');
+        writer.write(escape(row.getTeamName()));
+        writer.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        //'\r' 도 따옴표로 감싸야 CRLF 로 읽는 쪽에서 줄이 끊기지 않는다.
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
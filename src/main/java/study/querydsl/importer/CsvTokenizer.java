@@ -0,0 +1,183 @@
+package study.querydsl.importer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 메모리 맵 버퍼 위에서 CSV 레코드 하나씩 필드 위치(offset)만 잡는다. (필드를 읽기 전까지 복사/String 생성 없음)
+ * 따옴표 필드("a,b", "" 이스케이프, 필드 안의 줄바꿈)를 지원한다. 레코드가 여러 줄일 수 있으므로 "줄" 은 레코드를 말한다.
+ * 닫는 따옴표가 없으면 버퍼 끝까지가 한 필드가 되고 malformed 로 표시된다.
+ * 버퍼는 레코드 경계에서 시작해야 한다. (MemberImporter 가 따옴표 밖의 줄바꿈으로 구간을 나눈다)
+ */
+class CsvTokenizer {
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private int lineStart;
+    private int lineEnd;
+    private int fieldCount;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private boolean[] quoted = new boolean[8];
+    private boolean malformed;
+
+    CsvTokenizer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    //다음 레코드로 이동. 더 이상 없으면 false
+    boolean nextLine() {
+        if (position >= limit) {
+            return false;
+        }
+        lineStart = position;
+        fieldCount = 0;
+        malformed = false;
+
+        int index = position;
+        while (true) {
+            ensureCapacity(fieldCount + 1);
+            if (index < limit && buffer.get(index) == '"') {
+                int start = index + 1;
+                int end = -1;
+                index = start;
+                while (index < limit) {
+                    byte b = buffer.get(index);
+                    if (b == '"') {
+                        if (index + 1 < limit && buffer.get(index + 1) == '"') {
+                            index += 2;
+                            continue;
+                        }
+                        end = index++;
+                        break;
+                    }
+                    index++;
+                }
+                if (end < 0) {
+                    malformed = true; //닫는 따옴표 없음
+                    end = index;
+                }
+                addField(start, end, true);
+            } else {
+                int start = index;
+                while (index < limit && buffer.get(index) != ',' && buffer.get(index) != '\n') {
+                    index++;
+                }
+                addField(start, trimCarriageReturn(start, index), false);
+            }
+            if (index < limit && buffer.get(index) == '\r' && (index + 1 >= limit || buffer.get(index + 1) == '\n')) {
+                index++; //따옴표 필드 뒤의 \r\n
+            }
+
+            if (index >= limit || buffer.get(index) == '\n') {
+                break;
+            }
+            if (buffer.get(index) != ',') {
+                malformed = true; //닫는 따옴표 뒤에 다른 문자
+                while (index < limit && buffer.get(index) != ',' && buffer.get(index) != '\n') {
+                    index++;
+                }
+                if (index >= limit || buffer.get(index) == '\n') {
+                    break;
+                }
+            }
+            index++; //','
+        }
+
+        lineEnd = trimCarriageReturn(lineStart, index);
+        position = index + 1;
+        return true;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    boolean isMalformed() {
+        return malformed;
+    }
+
+    boolean isBlank() {
+        return lineEnd == lineStart;
+    }
+
+    //현재 줄의 파일 내 offset (버퍼 시작 기준)
+    int lineOffset() {
+        return lineStart;
+    }
+
+    //현재 줄 다음 줄의 offset (버퍼 시작 기준)
+    int nextLineOffset() {
+        return Math.min(position, limit);
+    }
+
+    boolean isEmpty(int field) {
+        return ends[field] == starts[field];
+    }
+
+    String string(int field) {
+        String value = decode(starts[field], ends[field]);
+        return quoted[field] ? value.replace("\"\"", "\"") : value;
+    }
+
+    //String 을 만들지 않고 바로 숫자로 읽는다.
+    int parseInt(int field) {
+        int index = starts[field];
+        int end = ends[field];
+        if (index == end) {
+            throw new NumberFormatException("empty");
+        }
+        boolean negative = buffer.get(index) == '-';
+        if (negative && ++index == end) {
+            throw new NumberFormatException("-");
+        }
+        long value = 0;
+        for (; index < end; index++) {
+            int digit = buffer.get(index) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(string(field));
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException(string(field));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException(string(field));
+        }
+        return (int) value;
+    }
+
+    String line() {
+        return decode(lineStart, lineEnd);
+    }
+
+    private String decode(int start, int end) {
+        return StandardCharsets.UTF_8.decode(buffer.slice(start, end - start)).toString();
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    private int trimCarriageReturn(int start, int end) {
+        return end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends = Arrays.copyOf(ends, ends.length * 2);
+            quoted = Arrays.copyOf(quoted, quoted.length * 2);
+        }
+    }
+}
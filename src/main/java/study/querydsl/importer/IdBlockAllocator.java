@@ -0,0 +1,37 @@
+package study.querydsl.importer;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * hibernate pooled optimizer 와 같은 규칙으로 시퀀스에서 id 블록을 받는다.
+ * nextval 이 hi 이면 (hi - blockSize, hi] 를 사용한다. -> hibernate 가 같은 시퀀스로 만든 id 와 겹치지 않는다.
+ * worker 마다 하나씩 사용한다. (thread-safe 아님)
+ */
+class IdBlockAllocator {
+
+    private final String nextValueSql;
+    private final int blockSize;
+
+    private long next = 1;
+    private long hi = 0;
+
+    IdBlockAllocator(String nextValueSql, int blockSize) {
+        this.nextValueSql = nextValueSql;
+        this.blockSize = blockSize;
+    }
+
+    long nextId(Connection connection) throws SQLException {
+        if (next > hi) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(nextValueSql)) {
+                resultSet.next();
+                hi = resultSet.getLong(1);
+            }
+            next = Math.max(1, hi - blockSize + 1);
+        }
+        return next++;
+    }
+}
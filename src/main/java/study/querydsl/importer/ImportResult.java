@@ -0,0 +1,23 @@
+package study.querydsl.importer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ImportResult {
+
+    private final long rows;
+    private final long rejected;
+    private final int teamsCreated;
+    private final Path errorFile;
+    private final long elapsedNanos;
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / 1e9);
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.importer;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * import 도중 실패. batch 마다 commit 하므로 실패 전에 커밋된 행은 DB 에 남아 있다.
+ * uncommittedRanges 는 커밋되지 않은 파일 구간(byte offset, 줄 경계)이라서 그 줄들만 다시 import 하면 된다.
+ */
+@Getter
+public class MemberImportException extends IllegalStateException {
+
+    private final Path file;
+    private final long committedRows;
+    private final int teamsCreated;
+    private final List<Range> uncommittedRanges;
+
+    public MemberImportException(Path file, long committedRows, int teamsCreated, List<Range> uncommittedRanges,
+                                 Throwable cause) {
+        super("member import failed: " + file + " (" + committedRows + " rows committed, uncommitted "
+                + uncommittedRanges + ")", cause);
+        this.file = file;
+        this.committedRows = committedRows;
+        this.teamsCreated = teamsCreated;
+        this.uncommittedRanges = List.copyOf(uncommittedRanges);
+    }
+
+    //[from, to)
+    public record Range(long from, long to) {
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.importer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.import")
+public class MemberImportProperties {
+
+    //지정하면 기동 시 이 파일을 import 한다. (--member.import.file=members.csv)
+    private Path file;
+
+    //잘못된 행을 남길 파일 (기본: <file>.rejected)
+    private Path errorFile;
+
+    //파일을 줄 단위로 나눠서 동시에 처리할 worker 수
+    private int workers = 4;
+
+    //JDBC batch 크기 (batch 마다 commit)
+    private int batchSize = 1_000;
+}
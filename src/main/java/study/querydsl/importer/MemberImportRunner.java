@@ -0,0 +1,22 @@
+package study.querydsl.importer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//java -jar querydsl.jar --member.import.file=members.csv
+@Component
+@ConditionalOnProperty(prefix = "member.import", name = "file")
+@RequiredArgsConstructor
+public class MemberImportRunner implements ApplicationRunner {
+
+    private final MemberImporter memberImporter;
+    private final MemberImportProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        memberImporter.importFile(properties.getFile());
+    }
+}
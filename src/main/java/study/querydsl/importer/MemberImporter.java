@@ -0,0 +1,426 @@
+package study.querydsl.importer;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.change.ChangeOperation;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CSV 대량 import. (em.persist 를 거치지 않고 JDBC batch 로 insert)
+ * <ul>
+ *     <li>파일을 레코드 경계(따옴표 밖의 줄바꿈)로 나눠서 worker 마다 자기 구간만 메모리 맵으로 읽는다.</li>
+ *     <li>팀 이름은 TeamResolver 캐시로 id 를 찾고, 없는 팀은 한 번만 만든다.</li>
+ *     <li>member id 는 시퀀스에서 블록 단위로 받는다. (IdBlockAllocator)</li>
+ *     <li>잘못된 행은 에러 파일에 남기고 건너뛴다.</li>
+ * </ul>
+ * 첫 줄은 헤더이고 username, age, team_name 컬럼을 이름으로 찾는다. (순서 무관, 다른 컬럼은 무시)
+ * JDBC 로 넣었으므로 끝나면 BULK_INSERT 이벤트를 발행한다. (실패해도 커밋된 batch 가 있으면 발행)
+ * batch 마다 commit 하므로 중간에 실패하면 일부만 들어간다. 이때 MemberImportException 에 커밋된 행 수와
+ * 커밋되지 않은 파일 구간(byte offset)이 담기므로 그 구간의 줄만 다시 import 하면 된다.
+ */
+@Slf4j
+@Component
+public class MemberImporter {
+
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+    private static final int MAX_USERNAME_LENGTH = 255;
+    //FileChannel.map 은 2GB 까지라서 구간을 이보다 작게 나눈다.
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    private final DataSource dataSource;
+    private final MemberImportProperties properties;
+    private final ChangeFeed changeFeed;
+    private final DataVersionCounter dataVersionCounter;
+    private final String memberNextValueSql;
+    private final String teamNextValueSql;
+
+    public MemberImporter(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                          MemberImportProperties properties, ChangeFeed changeFeed,
+                          DataVersionCounter dataVersionCounter) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.changeFeed = changeFeed;
+        this.dataVersionCounter = dataVersionCounter;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.memberNextValueSql = dialect.getSequenceSupport().getSequenceNextValString(Member.ID_SEQUENCE);
+        this.teamNextValueSql = dialect.getSequenceSupport().getSequenceNextValString(Team.ID_SEQUENCE);
+    }
+
+    public ImportResult importFile(Path file) {
+        Path errorFile = properties.getErrorFile() != null
+                ? properties.getErrorFile()
+                : file.resolveSibling(file.getFileName() + ".rejected");
+        return importFile(file, errorFile);
+    }
+
+    public ImportResult importFile(Path file, Path errorFile) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             RejectWriter rejects = new RejectWriter(errorFile)) {
+            long size = channel.size();
+            RecordBoundaries records = new RecordBoundaries(channel);
+            long headerEnd = records.next(0);
+            Columns columns = Columns.of(header(channel, headerEnd));
+
+            TeamResolver teams = new TeamResolver(dataSource, new IdBlockAllocator(teamNextValueSql, Team.ID_ALLOCATION_SIZE),
+                    dataVersionCounter);
+            teams.load();
+
+            List<Callable<long[]>> tasks = new ArrayList<>();
+            List<ChunkProgress> chunks = new ArrayList<>();
+            long[] boundaries = chunks(records, headerEnd, size);
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                if (boundaries[i] < boundaries[i + 1]) {
+                    ChunkProgress chunk = new ChunkProgress(boundaries[i], boundaries[i + 1]);
+                    chunks.add(chunk);
+                    tasks.add(() -> importChunk(channel, chunk, columns, teams, rejects));
+                }
+            }
+
+            long rows = 0;
+            long rejected = 0;
+            try {
+                for (long[] result : runAll(tasks)) {
+                    rows += result[0];
+                    rejected += result[1];
+                }
+            } catch (IOException | SQLException | RuntimeException e) {
+                throw new MemberImportException(file, committedRows(chunks), teams.getCreated(), uncommittedRanges(chunks), e);
+            } finally {
+                //일부 worker 가 실패해도 이미 커밋된 행은 있으므로 발행한다.
+                if (committedRows(chunks) > 0 || teams.getCreated() > 0) {
+                    changeFeed.publish(List.of(
+                            ChangeEvent.bulk(Member.class, ChangeOperation.BULK_INSERT, Set.of("username", "age", "team"), null),
+                            ChangeEvent.bulk(Team.class, ChangeOperation.BULK_INSERT, Set.of("name"), null)));
+                }
+            }
+
+            ImportResult result = new ImportResult(rows, rejected, teams.getCreated(), errorFile, System.nanoTime() - start);
+            log.info("member import {}: {} rows ({} rows/s), {} rejected, {} teams created",
+                    file, rows, (long) result.getRowsPerSecond(), rejected, result.getTeamsCreated());
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("member import failed: " + file, e);
+        }
+    }
+
+    //[0] = 넣은 행 수, [1] = 거부된 행 수
+    private long[] importChunk(FileChannel channel, ChunkProgress chunk, Columns columns,
+                               TeamResolver teams, RejectWriter rejects) throws IOException, SQLException {
+        long from = chunk.from;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, chunk.to - from);
+        CsvTokenizer tokenizer = new CsvTokenizer(buffer);
+        IdBlockAllocator memberIds = new IdBlockAllocator(memberNextValueSql, Member.ID_ALLOCATION_SIZE);
+
+        long rows = 0;
+        long rejected = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_MEMBER)) {
+                int pending = 0;
+                while (tokenizer.nextLine()) {
+                    if (tokenizer.isBlank()) {
+                        continue;
+                    }
+                    Row row = columns.parse(tokenizer);
+                    if (row.rejectReason() != null) {
+                        rejects.write(from + tokenizer.lineOffset(), row.rejectReason(), tokenizer.line());
+                        rejected++;
+                        continue;
+                    }
+
+                    insert.setLong(1, memberIds.nextId(connection));
+                    insert.setString(2, row.username()); //username_lower 는 DB 생성 컬럼
+                    insert.setInt(3, row.age());
+                    if (row.teamName() == null) {
+                        insert.setNull(4, Types.BIGINT);
+                    } else {
+                        insert.setLong(4, teams.resolve(row.teamName()));
+                    }
+                    insert.addBatch();
+                    rows++;
+
+                    if (++pending == properties.getBatchSize()) {
+                        insert.executeBatch();
+                        dataVersionCounter.increment(connection, DataVersionCounter.Changes.members(pending));
+                        connection.commit();
+                        chunk.committed(pending, from + tokenizer.nextLineOffset());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                    dataVersionCounter.increment(connection, DataVersionCounter.Changes.members(pending));
+                    connection.commit();
+                    chunk.committed(pending, chunk.to);
+                }
+            } catch (IOException | SQLException | RuntimeException e) {
+                connection.rollback(); //에러 파일 쓰기 실패도 아직 커밋 안 된 batch 는 되돌린다.
+                throw e;
+            }
+        }
+        return new long[]{rows, rejected};
+    }
+
+    private static long committedRows(List<ChunkProgress> chunks) {
+        long rows = 0;
+        for (ChunkProgress chunk : chunks) {
+            rows += chunk.committedRows;
+        }
+        return rows;
+    }
+
+    private static List<MemberImportException.Range> uncommittedRanges(List<ChunkProgress> chunks) {
+        List<MemberImportException.Range> ranges = new ArrayList<>();
+        for (ChunkProgress chunk : chunks) {
+            if (chunk.committedTo < chunk.to) {
+                ranges.add(new MemberImportException.Range(chunk.committedTo, chunk.to));
+            }
+        }
+        return ranges;
+    }
+
+    private List<long[]> runAll(List<Callable<long[]>> tasks) throws IOException, SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()),
+                new CustomizableThreadFactory("member-import-"));
+        try {
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while importing members", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //헤더 다음부터 파일 끝까지를 레코드 경계로 나눈 위치들 (처음 = headerEnd, 마지막 = size)
+    private long[] chunks(RecordBoundaries records, long headerEnd, long size) throws IOException {
+        long body = size - headerEnd;
+        int count = (int) Math.max(Math.max(1, properties.getWorkers()), (body + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long[] boundaries = new long[count + 1];
+        boundaries[0] = headerEnd;
+        for (int i = 1; i < count; i++) {
+            long target = headerEnd + body * i / count;
+            boundaries[i] = Math.max(boundaries[i - 1], records.next(target));
+        }
+        boundaries[count] = size;
+        return boundaries;
+    }
+
+    //헤더 레코드 [0, headerEnd)
+    private static CsvTokenizer header(FileChannel channel, long headerEnd) throws IOException {
+        CsvTokenizer header = new CsvTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, headerEnd));
+        if (!header.nextLine()) {
+            throw new IllegalArgumentException("csv file is empty");
+        }
+        return header;
+    }
+
+    /**
+     * 파일을 앞에서부터 한 번만 읽으면서 레코드 경계(따옴표 밖의 '\n' 다음 위치)를 찾는다.
+     * 따옴표 필드 안의 줄바꿈에서 구간을 나누면 양쪽 worker 가 레코드를 잘못 읽으므로 처음부터 따옴표 안인지 따라가야 한다.
+     */
+    private static class RecordBoundaries {
+
+        private final FileChannel channel;
+        private final ByteBuffer window = ByteBuffer.allocate(64 * 1024);
+        private long offset;
+        private boolean quoted;
+
+        RecordBoundaries(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        //target 이후 첫 레코드 경계 (없으면 파일 끝). target 은 호출마다 커져야 한다.
+        long next(long target) throws IOException {
+            while (true) {
+                window.clear();
+                int read = channel.read(window, offset);
+                if (read < 0) {
+                    return channel.size();
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = window.get(i);
+                    if (b == '"') {
+                        quoted = !quoted; //"" 이스케이프는 두 번 바뀌어서 그대로
+                    } else if (b == '\n' && !quoted && offset + i >= target) {
+                        offset += i + 1;
+                        return offset;
+                    }
+                }
+                offset += read;
+            }
+        }
+    }
+
+    //헤더에서 찾은 컬럼 위치
+    private record Columns(int username, int age, int teamName, int required) {
+
+        static Columns of(CsvTokenizer header) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < header.fieldCount(); i++) {
+                names.add(header.string(i).strip());
+            }
+            int username = names.indexOf("username");
+            int age = names.indexOf("age");
+            if (header.isMalformed() || username < 0 || age < 0) {
+                throw new IllegalArgumentException("csv header must contain username and age: " + header.line());
+            }
+            int teamName = names.indexOf("team_name");
+            return new Columns(username, age, teamName, Math.max(username, age) + 1);
+        }
+
+        //필드마다 한 번만 읽는다. 문제가 있으면 rejectReason 에 이유
+        Row parse(CsvTokenizer tokenizer) {
+            if (tokenizer.isMalformed()) {
+                return Row.rejected("malformed quotes");
+            }
+            if (tokenizer.fieldCount() < required) {
+                return Row.rejected("expected at least " + required + " fields but was " + tokenizer.fieldCount());
+            }
+            if (tokenizer.isEmpty(username)) {
+                return Row.rejected("empty username");
+            }
+            String usernameValue = tokenizer.string(username);
+            if (usernameValue.length() > MAX_USERNAME_LENGTH) {
+                return Row.rejected("username too long");
+            }
+            int ageValue;
+            try {
+                ageValue = tokenizer.parseInt(age);
+            } catch (NumberFormatException e) {
+                return Row.rejected("invalid age");
+            }
+            if (ageValue < 0) {
+                return Row.rejected("negative age");
+            }
+            String teamNameValue = hasTeamName(tokenizer) ? tokenizer.string(teamName) : null;
+            if (teamNameValue != null && teamNameValue.length() > MAX_USERNAME_LENGTH) {
+                return Row.rejected("team name too long");
+            }
+            return new Row(usernameValue, ageValue, teamNameValue, null);
+        }
+
+        private boolean hasTeamName(CsvTokenizer tokenizer) {
+            return teamName >= 0 && teamName < tokenizer.fieldCount() && !tokenizer.isEmpty(teamName);
+        }
+    }
+
+    //읽은 행. teamName 이 없으면 null
+    private record Row(String username, int age, String teamName, String rejectReason) {
+
+        static Row rejected(String reason) {
+            return new Row(null, 0, null, reason);
+        }
+    }
+
+    //worker 하나가 맡은 파일 구간 [from, to) 과 그 중 커밋된 곳까지의 위치
+    private static class ChunkProgress {
+
+        private final long from;
+        private final long to;
+        private volatile long committedTo;
+        private volatile long committedRows;
+
+        ChunkProgress(long from, long to) {
+            this.from = from;
+            this.to = to;
+            this.committedTo = from;
+        }
+
+        //worker 스레드만 쓴다.
+        void committed(int rows, long position) {
+            committedRows += rows;
+            committedTo = position;
+        }
+    }
+
+    //여러 worker 가 같이 쓰는 에러 파일
+    private static class RejectWriter implements AutoCloseable {
+
+        private final Path path;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Writer writer;
+
+        RejectWriter(Path path) throws IOException {
+            this.path = path;
+            Files.deleteIfExists(path); //이전 실행의 결과
+        }
+
+        void write(long offset, String reason, String line) throws IOException {
+            lock.lock();
+            try {
+                if (writer == null) { //거부된 행이 없으면 파일을 만들지 않는다.
+                    writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                }
+                //여러 줄 레코드도 에러 파일에서는 한 줄로
+                writer.write("offset=" + offset + " reason=" + reason
+                        + " line=" + line.replace("\r", "\\r").replace("\n", "\\n") + "\n");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.importer;
+
+import study.querydsl.change.DataVersionCounter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 팀 이름 -> id 캐시. 없는 팀은 한 번만 만든다. (바로 commit 해서 member batch 의 FK 가 항상 만족되도록)
+ * 만들 때마다 데이터 버전도 같이 올린다. (버전으로 캐시를 검증하는 쪽이 새 팀을 보도록)
+ */
+class TeamResolver {
+
+    private final DataSource dataSource;
+    private final IdBlockAllocator teamIds;
+    private final DataVersionCounter dataVersionCounter;
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final ReentrantLock createLock = new ReentrantLock();
+    private int created;
+
+    TeamResolver(DataSource dataSource, IdBlockAllocator teamIds, DataVersionCounter dataVersionCounter) {
+        this.dataSource = dataSource;
+        this.teamIds = teamIds;
+        this.dataVersionCounter = dataVersionCounter;
+    }
+
+    void load() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select id, name from team where name is not null order by id desc")) {
+            while (resultSet.next()) {
+                ids.put(resultSet.getString(2), resultSet.getLong(1)); //같은 이름이면 id 가 작은 팀
+            }
+        }
+    }
+
+    Long resolve(String name) throws SQLException {
+        Long id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        createLock.lock();
+        try {
+            id = ids.get(name);
+            if (id == null) {
+                id = create(name);
+                ids.put(name, id);
+                created++;
+            }
+            return id;
+        } finally {
+            createLock.unlock();
+        }
+    }
+
+    private long create(String name) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            long id = teamIds.nextId(connection); //시퀀스는 트랜잭션과 무관
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("insert into team (id, name) values (?, ?)")) {
+                insert.setLong(1, id);
+                insert.setString(2, name);
+                insert.executeUpdate();
+                dataVersionCounter.increment(connection, DataVersionCounter.Changes.NONE); //커밋 직전 마지막 statement
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+            return id;
+        }
+    }
+
+    int getCreated() {
+        createLock.lock();
+        try {
+            return created;
+        } finally {
+            createLock.unlock();
+        }
+    }
+}
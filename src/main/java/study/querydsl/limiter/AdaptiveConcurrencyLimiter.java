@@ -0,0 +1,163 @@
+package study.querydsl.limiter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 측정된 처리 시간(RTT)을 기준으로 동시 실행 개수(limit)를 조절한다. (gradient 방식)
+ * - 정상: newLimit = limit * (minRtt * tolerance / rtt) + sqrt(limit)
+ * - 실패(5xx): limit * backoffRatio 로 감소 (AIMD 의 multiplicative decrease)
+ * limit 을 넘는 요청은 대기열에서 maxWait 만큼 기다리고, 대기열이 가득 차면 바로 거절한다.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final ConcurrencyLimiterProperties.Limit config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inflight;
+    private int waiting;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samplesSinceProbe;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimiterProperties.Limit config) {
+        this.name = name;
+        this.config = config;
+        this.limit = clamp(config.getInitialLimit());
+    }
+
+    public Permit acquire() {
+        lock.lock();
+        try {
+            if (inflight < getLimit()) {
+                return grant();
+            }
+            if (waiting >= config.getMaxQueueSize()) {
+                throw reject();
+            }
+            waiting++;
+            try {
+                long remaining = config.getMaxWait().toNanos();
+                while (inflight >= getLimit()) {
+                    if (remaining <= 0) {
+                        throw reject();
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                return grant();
+            } finally {
+                waiting--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit grant() {
+        inflight++;
+        return new Permit(inflight);
+    }
+
+    private ConcurrencyLimitExceededException reject() {
+        rejected.increment();
+        return new ConcurrencyLimitExceededException(name);
+    }
+
+    private void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+        lock.lock();
+        try {
+            inflight--;
+            if (dropped) {
+                limit = clamp(limit * config.getBackoffRatio());
+            } else {
+                long rtt = Math.max(1, rttNanos);
+                if (++samplesSinceProbe >= config.getProbeInterval()) {
+                    //부하가 바뀌었을 수 있으므로 주기적으로 minRtt 를 새로 잡는다.
+                    minRttNanos = rtt;
+                    samplesSinceProbe = 0;
+                } else {
+                    minRttNanos = Math.min(minRttNanos, rtt);
+                }
+
+                double gradient = Math.max(0.5, Math.min(1.0, config.getTolerance() * minRttNanos / rtt));
+                double newLimit = limit * gradient + Math.sqrt(limit);
+
+                //limit 까지 쓰지도 않는 상황에서는 limit 을 늘리지 않는다.
+                if (newLimit > limit && inflightAtStart * 2 < limit) {
+                    newLimit = limit;
+                }
+                limit = clamp(limit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing());
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), value));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final int inflightAtStart;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        //dropped: 요청이 실패(5xx, 예외)한 경우 true
+        public void release(boolean dropped) {
+            if (done.compareAndSet(false, true)) {
+                onSample(System.nanoTime() - startNanos, inflightAtStart, dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.limiter;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(String endpoint) {
+        super("concurrency limit exceeded: " + endpoint);
+    }
+}
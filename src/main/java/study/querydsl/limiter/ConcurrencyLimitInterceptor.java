@@ -0,0 +1,35 @@
+package study.querydsl.limiter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = ConcurrencyLimitInterceptor.class.getName() + ".PERMIT";
+
+    private final ConcurrencyLimiterRegistry limiterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //"/v1/members" 처럼 매핑된 경로 패턴 단위로 limit 을 관리한다.
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+
+        //limit 초과 + 대기열 가득 -> ConcurrencyLimitExceededException (503)
+        request.setAttribute(PERMIT, limiterRegistry.get(endpoint).acquire());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof AdaptiveConcurrencyLimiter.Permit permit) {
+            permit.release(ex != null || response.getStatus() >= 500);
+        }
+    }
+}
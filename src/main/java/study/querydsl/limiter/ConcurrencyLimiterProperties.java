@@ -0,0 +1,39 @@
+package study.querydsl.limiter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.limiter")
+public class ConcurrencyLimiterProperties {
+
+    private boolean enabled = true;
+
+    //엔드포인트 별 설정이 없으면 기본값 사용
+    private Limit defaults = new Limit();
+
+    //key: 요청 경로 패턴 (yml 에서는 "[/v1/members]" 형태로 작성)
+    private Map<String, Limit> endpoints = new LinkedHashMap<>();
+
+    public Limit forEndpoint(String pattern) {
+        return endpoints.getOrDefault(pattern, defaults);
+    }
+
+    @Getter @Setter
+    public static class Limit {
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private int maxQueueSize = 50; //대기열이 가득 차면 바로 503
+        private Duration maxWait = Duration.ofMillis(200);
+        private double tolerance = 2.0; //최소 지연(minRtt) 대비 몇 배까지 정상으로 볼지
+        private double smoothing = 0.2;
+        private double backoffRatio = 0.9; //실패(5xx) 시 limit 감소 비율
+        private int probeInterval = 500; //N 개 샘플마다 minRtt 를 다시 측정
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//엔드포인트(경로 패턴) 별로 limiter 를 하나씩 만들고 메트릭을 등록한다.
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimiterRegistry {
+
+    private final ConcurrencyLimiterProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter get(String endpoint) {
+        return limiters.computeIfAbsent(endpoint, this::create);
+    }
+
+    private AdaptiveConcurrencyLimiter create(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(endpoint, properties.forEndpoint(endpoint));
+
+        Gauge.builder("member.search.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("member.search.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("member.search.limiter.queued", limiter, AdaptiveConcurrencyLimiter::getWaiting)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        FunctionCounter.builder("member.search.limiter.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+
+        return limiter;
+    }
+}
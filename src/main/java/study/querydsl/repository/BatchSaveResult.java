@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BatchSaveResult {
+
+    private final long entityCount;
+    private final long batchCount; //flush + detach 횟수
+    private final long statementCount; //hibernate statistics 가 꺼져 있으면 -1
+    private final long elapsedNanos;
+
+    public double getStatementsPerEntity() {
+        return statementCount < 0 || entityCount == 0 ? -1 : (double) statementCount / entityCount;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : entityCount / (elapsedNanos / 1e9);
+    }
+}
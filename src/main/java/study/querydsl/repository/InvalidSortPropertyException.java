@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSortPropertyException extends RuntimeException {
+
+    public InvalidSortPropertyException(String property) {
+        super("unsupported sort property: " + property);
+    }
+}
@@ -8,6 +8,7 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.CappedList;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
@@ -21,24 +22,25 @@ import java.util.Optional;
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.repository.MemberPredicates.ageGoe;
+import static study.querydsl.repository.MemberPredicates.ageLoe;
+import static study.querydsl.repository.MemberPredicates.teamNameEq;
+import static study.querydsl.repository.MemberPredicates.usernameEq;
 
 @Repository
 public class MemberJpaRepository {
 
     private final EntityManager em; //JPA 접근하기 위해서 EntityManager가 필요!
     private final JPAQueryFactory queryFactory; //Querydsl 을 사용하기 위해서 JPAQueryFactory
+    private final MemberQueryProperties properties;
 
-    public MemberJpaRepository(EntityManager em) {
-        this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
-    }
-
-/* JPAQueryFactory 를 Spring Bean 으로 등록했을때, 아래와 같이 생성자에서 할당시켜줄 수 있다.
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    //JPAQueryFactory 는 Spring Bean (ChangeTrackingJPAQueryFactory) 을 주입받는다. 직접 만들면 bulk 변경이 변경 피드에 남지 않는다.
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberQueryProperties properties) {
         this.em = em;
         this.queryFactory = queryFactory;
+        this.properties = properties;
     }
-*/
+
     public void save(Member member) {
         em.persist(member);
     }
@@ -48,15 +50,22 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
-    public List<Member> findAll(){
-        return em.createQuery("select m from Member m", Member.class)
-                .getResultList();
+    //페이징 없는 조회는 최대 cap 건까지만 (cap+1 건 조회해서 잘렸는지 확인)
+    //id 순서로 잘라야 잘린 결과가 매번 같고, 나머지를 id 순 페이징(/v3 기본 정렬)으로 이어서 조회할 수 있다.
+    public CappedList<Member> findAll(){
+        int cap = properties.getRowCap().capFor("findAll");
+        return CappedList.of(em.createQuery("select m from Member m order by m.id", Member.class)
+                .setMaxResults(cap + 1)
+                .getResultList(), cap);
     }
 
-    public List<Member> findAll_Querydsl(){
-        return queryFactory
+    public CappedList<Member> findAll_Querydsl(){
+        int cap = properties.getRowCap().capFor("findAll_Querydsl");
+        return CappedList.of(queryFactory
                 .selectFrom(member)
-                .fetch();
+                .orderBy(member.id.asc())
+                .limit(cap + 1)
+                .fetch(), cap);
     }
 
     public List<Member> findByUsername(String username) {
@@ -74,11 +83,11 @@ public class MemberJpaRepository {
     }
 
     //동적쿼리: 검색 조건에 대해서 조회
-    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+    public CappedList<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+            builder.and(usernameEq(condition));
         }
         if (hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
@@ -92,7 +101,8 @@ public class MemberJpaRepository {
         }
 
 
-        return queryFactory
+        int cap = properties.getRowCap().capFor("searchByBuilder");
+        return CappedList.of(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -103,11 +113,14 @@ public class MemberJpaRepository {
                 .from(member)
                 .where(builder)
                 .leftJoin(member.team, team)
-                .fetch();
+                .orderBy(member.id.asc())
+                .limit(cap + 1)
+                .fetch(), cap);
     }
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+    public CappedList<MemberTeamDto> search(MemberSearchCondition condition) {
+        int cap = properties.getRowCap().capFor("search");
+        return CappedList.of(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -118,40 +131,29 @@ public class MemberJpaRepository {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
-                .fetch();
+                .orderBy(member.id.asc())
+                .limit(cap + 1)
+                .fetch(), cap);
     }
 
-    public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
+    public CappedList<Member> searchMember(MemberSearchCondition condition) {
+        int cap = properties.getRowCap().capFor("searchMember");
+        return CappedList.of(queryFactory
                 .selectFrom(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
                 )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+                .orderBy(member.id.asc())
+                .limit(cap + 1)
+                .fetch(), cap);
     }
 
     //조합 버전
@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 조건 하나씩의 where 절. 조건이 비어 있으면 null (where 에서 무시됨)
+ * teamNameEq 는 team 을 join 한 쿼리에서만 사용한다.
+ */
+final class MemberPredicates {
+
+    private MemberPredicates() {
+    }
+
+    //대소문자 무시면 lower(username) 대신 정규화 컬럼(username_lower, 인덱스 있음)으로 비교
+    static BooleanExpression usernameEq(MemberSearchCondition condition) {
+        String username = condition.getUsername();
+        if (!hasText(username)) {
+            return null;
+        }
+        return condition.isUsernameIgnoreCase()
+                ? member.usernameLower.eq(Member.normalize(username))
+                : member.username.eq(username);
+    }
+
+    static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.deadline.RequestDeadline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 조회 쿼리 병렬 실행용 스레드 풀.
+ * ExecutorService 를 빈으로 직접 등록하면 스프링 부트 기본 TaskExecutor 설정이 꺼지므로 감싸서 등록한다.
+ * spring.threads.virtual.enabled=true 이면 작업마다 virtual thread 를 만들고, 동시 실행 수는 semaphore 로 parallelism 만큼 제한한다.
+ */
+@Component
+public class MemberQueryExecutor {
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final Semaphore permits;
+
+    public MemberQueryExecutor(MemberQueryProperties properties, Environment environment) {
+        this.parallelism = Math.max(1, properties.getMultiGet().getParallelism());
+        this.permits = new Semaphore(parallelism);
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("member-query-", 0).factory())
+                : Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("member-query-"));
+    }
+
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    //모든 작업을 실행하고 입력 순서대로 결과를 돌려준다.
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks.stream().map(this::limited).toList())) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while running member queries", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    //고정 풀에서는 항상 바로 얻는다. virtual thread 일 때도 동시 조회 수를 고정 풀과 같게 유지해서 커넥션 풀을 다 쓰지 않게 한다.
+    //요청 제한 시간(RequestDeadline)도 작업 스레드로 넘긴다.
+    private <T> Callable<T> limited(Callable<T> task) {
+        Callable<T> propagated = RequestDeadline.propagate(task);
+        return () -> {
+            permits.acquire();
+            try {
+                return propagated.call();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
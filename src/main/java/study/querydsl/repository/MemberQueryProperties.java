@@ -0,0 +1,65 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.query")
+public class MemberQueryProperties {
+
+    private ApproximateCount approximateCount = new ApproximateCount();
+    private MultiGet multiGet = new MultiGet();
+    private RowCap rowCap = new RowCap();
+    private Histogram histogram = new Histogram();
+    private Scan scan = new Scan();
+
+    @Getter @Setter
+    public static class ApproximateCount {
+        //팀/나이 통계를 다시 집계하는 주기 (백그라운드 스케줄, 데이터 버전이 바뀐 경우만 집계)
+        private Duration refreshInterval = Duration.ofMinutes(1);
+        //추정치가 이보다 작으면 count 쿼리도 싸므로 정확한 값을 사용
+        private long exactThreshold = 10_000;
+    }
+
+    @Getter @Setter
+    public static class MultiGet {
+        //in 절 최대 크기. 2의 거듭제곱으로 맞춰야 패딩 후에도 넘지 않는다.
+        private int chunkSize = 512;
+        //1 보다 크면 chunk 들을 병렬로 조회 (트랜잭션 밖에서 호출된 경우만)
+        private int parallelism = 1;
+    }
+
+    //페이징 없는 조회의 최대 행 수 (sql 에서 limit cap+1 로 조회해서 잘렸는지 확인)
+    @Getter @Setter
+    public static class RowCap {
+        private int defaultCap = 1_000;
+        //메서드 별 설정 (key: search, searchByBuilder, searchMember, findAll, findAll_Querydsl)
+        private Map<String, Integer> methods = new LinkedHashMap<>();
+
+        public int capFor(String method) {
+            return methods.getOrDefault(method, defaultCap);
+        }
+    }
+
+    @Getter @Setter
+    public static class Histogram {
+        //경계를 지정하지 않았을 때 (0~20, 21~30, 31~)
+        private List<Integer> defaultBoundaries = List.of(20, 30);
+        private int maxBuckets = 20;
+        //서로 다른 경계 조합을 몇 개까지 캐시할지
+        private int maxCachedBuckets = 64;
+    }
+
+    //StatelessSession 커서 조회 (MemberStatelessRepository)
+    @Getter @Setter
+    public static class Scan {
+        //DB 에서 한번에 가져오는 행 수
+        private int fetchSize = 1_000;
+    }
+}
@@ -1,9 +1,7 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -11,9 +9,12 @@ import study.querydsl.dto.QMemberTeamDto;
 
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.ageGoe;
+import static study.querydsl.repository.MemberPredicates.ageLoe;
+import static study.querydsl.repository.MemberPredicates.teamNameEq;
+import static study.querydsl.repository.MemberPredicates.usernameEq;
 
 @Repository
 public class MemberQueryRepository {
@@ -21,8 +22,8 @@ public class MemberQueryRepository {
     private final JPAQueryFactory queryFactory;
 
 
-    public MemberQueryRepository(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberQueryRepository(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
@@ -37,7 +38,7 @@ public class MemberQueryRepository {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
@@ -45,21 +46,5 @@ public class MemberQueryRepository {
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
 
 }
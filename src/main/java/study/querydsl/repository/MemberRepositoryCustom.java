@@ -3,10 +3,17 @@ package study.querydsl.repository;
 import org.hibernate.metamodel.model.domain.internal.PathHelper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.AgeBuckets;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepositoryCustom {
 
@@ -16,5 +23,24 @@ public interface MemberRepositoryCustom {
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PageSearchOptions options);
+
+    //count 쿼리 없이 다음 페이지 존재 여부만 확인 (무한 스크롤)
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    //여러 검색 조건(ex: 팀 탭 별)의 결과를 쿼리 한 번으로 조회
+    <K> Map<K, List<MemberTeamDto>> searchBatch(Map<K, MemberSearchCondition> conditions);
+
+    //외부 시스템에서 받은 id 목록을 한번에 조회 (chunk 단위 in 조회, 입력 순서 유지)
+    List<MemberTeamDto> findAllByIds(Collection<Long> ids);
+
+    List<Member> findMembersByIds(Collection<Long> ids);
+
+    //팀별 나이 구간별 회원 수 (집계 쿼리 1회)
+    List<AgeBucketCountDto> ageHistogram(AgeBuckets buckets);
+
+    //대량 저장 (batchSize 마다 flush + 저장한 엔티티만 detach, JDBC batch). batchSize 는 1 이상
+    BatchSaveResult saveAllBatched(Iterable<Member> members, int batchSize);
+
 
 }
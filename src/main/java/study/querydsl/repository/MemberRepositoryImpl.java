@@ -1,31 +1,74 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.deadline.RequestDeadline;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.AgeBuckets;
+import study.querydsl.dto.CountMode;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageFetchStrategy;
+import study.querydsl.dto.PageSearchOptions;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.SearchPage;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.ageGoe;
+import static study.querydsl.repository.MemberPredicates.ageLoe;
+import static study.querydsl.repository.MemberPredicates.teamNameEq;
+import static study.querydsl.repository.MemberPredicates.usernameEq;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberStatistics memberStatistics;
+    private final MemberQueryProperties properties;
+    private final MemberQueryExecutor queryExecutor;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em); //JPAQueryFactory 를 만들때 EntityManager 을 생성자로 넣어줘야 한다.
+    //queryFactory 는 bulk 변경 기록 + 요청 제한 시간(query timeout)을 처리하는 Spring Bean
+    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, MemberStatistics memberStatistics,
+                                MemberQueryProperties properties, MemberQueryExecutor queryExecutor) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.memberStatistics = memberStatistics;
+        this.properties = properties;
+        this.queryExecutor = queryExecutor;
     }
 
     @Override
@@ -41,7 +84,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
@@ -49,22 +92,6 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
     //페이징
 
     @Override
@@ -80,11 +107,12 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
                 .offset(pageable.getOffset()) // 몇번째 부터 시작할꺼야
                 .limit(pageable.getPageSize()) // 한번 조회하면 몇개까지 조회할꺼야
                 .fetchResults();
@@ -98,32 +126,43 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset()) // 몇번째 부터 시작할꺼야
-                .limit(pageable.getPageSize()) // 한번 조회하면 몇개까지 조회할꺼야
-                .fetch(); //fetch() 는 content 만 가져온다.
+        return searchPageComplex(condition, pageable, new PageSearchOptions());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PageSearchOptions options) {
+        List<MemberTeamDto> content;
+        if (options.getFetchStrategy() == PageFetchStrategy.DEFERRED_JOIN) {
+            content = fetchByDeferredJoin(condition, pageable);
+        } else {
+            content = queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(
+                            usernameEq(condition),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe())
+                    )
+                    .orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
+                    .offset(pageable.getOffset()) // 몇번째 부터 시작할꺼야
+                    .limit(pageable.getPageSize()) // 한번 조회하면 몇개까지 조회할꺼야
+                    .fetch(); //fetch() 는 content 만 가져온다.
+        }
 
 //        long total = queryFactory
 //                .select(member)
 //                .from(member)
 //                .leftJoin(member.team, team)
 //                .where(
-//                        usernameEq(condition.getUsername()),
+//                        usernameEq(condition),
 //                        teamNameEq(condition.getTeamName()),
 //                        ageGoe(condition.getAgeGoe()),
 //                        ageLoe(condition.getAgeLoe())
@@ -137,13 +176,388 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 );
 
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+        //검증된 page token 으로 받은 전체 개수가 있으면 count 쿼리를 생략한다. (MemberSearchService)
+        if (options.getKnownTotal() != null) {
+            return PageableExecutionUtils.getPage(content, pageable, () -> options.getKnownTotal());
+        }
+
+        //수천만 건 테이블에서는 count 쿼리가 제일 느리므로, 요청 시 통계 기반 추정치를 사용한다.
+        if (options.getCountMode() == CountMode.APPROXIMATE) {
+            Optional<MemberStatistics.Estimate> estimate = memberStatistics.estimate(condition);
+            if (estimate.isPresent()
+                    && estimate.get().getCount() >= properties.getApproximateCount().getExactThreshold()) {
+                return new SearchPage<>(content, pageable, estimate.get().getCount(), true, estimate.get().getErrorBound());
+            }
+        }
+
+        try {
+            return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+        } catch (RuntimeException e) {
+            Optional<RequestDeadline> deadline = RequestDeadline.current();
+            if (deadline.isEmpty() || !deadline.get().allowsPartialResults() || !RequestDeadline.isTimeout(e)) {
+                throw e;
+            }
+            return partialPage(content, pageable, condition, deadline.get());
+        }
+    }
+
+    //count 가 제한 시간을 넘긴 경우 (DeadlinePolicy.PARTIAL): content 는 그대로 주고 전체 개수는 통계 추정치,
+    //추정할 수 없으면 지금까지 확인된 개수(하한)로 응답한다. 오차 범위를 모르므로 -1
+    private Page<MemberTeamDto> partialPage(List<MemberTeamDto> content, Pageable pageable,
+                                            MemberSearchCondition condition, RequestDeadline deadline) {
+        deadline.markPartial();
+        long lowerBound = pageable.getOffset() + content.size() + (content.size() == pageable.getPageSize() ? 1 : 0);
+        Optional<MemberStatistics.Estimate> estimate = memberStatistics.estimate(condition);
+        if (estimate.isPresent() && estimate.get().getCount() >= lowerBound) {
+            return new SearchPage<>(content, pageable, estimate.get().getCount(), true, estimate.get().getErrorBound());
+        }
+        return new SearchPage<>(content, pageable, lowerBound, true, -1);
+    }
+
+    //깊은 offset 페이지에서 건너뛰는 행까지 member, team 전체 컬럼을 읽지 않도록
+    //1. 조건 + offset/limit 으로 member.id 만 조회 (인덱스만으로 처리 가능)
+    //2. 해당 페이지 id 들만 projection 조회
+    private List<MemberTeamDto> fetchByDeferredJoin(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<Long> idQuery = queryFactory
+                .select(member.id)
+                .from(member);
+        if (hasText(condition.getTeamName()) || MemberSort.requiresTeam(pageable.getSort())) {
+            idQuery.leftJoin(member.team, team); //팀 조건/정렬이 있을 때만 join
+        }
+        List<Long> ids = idQuery
+                .where(
+                        usernameEq(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<MemberTeamDto> rows = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(ids))
+                .fetch();
+
+        //in 조회 결과는 순서가 보장되지 않으므로 id 조회 순서대로 맞춘다.
+        Map<Long, MemberTeamDto> byId = new HashMap<>();
+        for (MemberTeamDto row : rows) {
+            byId.put(row.getMemberId(), row);
+        }
+        List<MemberTeamDto> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MemberTeamDto row = byId.get(id);
+            if (row != null) { //두 쿼리 사이에 삭제된 경우
+                content.add(row);
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(MemberSort.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1) // 1개 더 조회해서 다음 페이지가 있는지 확인
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    //여러 검색 조건을 쿼리 한 번으로 조회
+    //where 는 조건들의 OR, select 에 조건별 일치 여부(case when 조건 then 1 else 0)를 추가해서 결과를 key 별로 나눈다.
+    //한 회원이 여러 조건에 해당하면 각 key 에 모두 포함된다.
+    @Override
+    public <K> Map<K, List<MemberTeamDto>> searchBatch(Map<K, MemberSearchCondition> conditions) {
+        Map<K, List<MemberTeamDto>> result = new LinkedHashMap<>();
+        if (conditions.isEmpty()) {
+            return result;
+        }
+
+        List<K> keys = new ArrayList<>(conditions.keySet());
+        List<Expression<?>> select = new ArrayList<>(List.of(member.id, member.username, member.age, team.id, team.name));
+        BooleanBuilder anyMatch = new BooleanBuilder();
+        for (K key : keys) {
+            Predicate predicate = conditionPredicate(conditions.get(key));
+            select.add(new CaseBuilder()
+                    .when(predicate).then(1)
+                    .otherwise(0));
+            anyMatch.or(predicate);
+            result.put(key, new ArrayList<>());
+        }
+
+        List<Tuple> rows = queryFactory
+                .select(select.toArray(new Expression<?>[0]))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(anyMatch)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        for (Tuple row : rows) {
+            MemberTeamDto dto = new MemberTeamDto(
+                    row.get(member.id),
+                    row.get(member.username),
+                    row.get(member.age),
+                    row.get(team.id),
+                    row.get(team.name));
+            for (int i = 0; i < keys.size(); i++) {
+                Number matched = row.get(5 + i, Number.class);
+                if (matched != null && matched.intValue() == 1) {
+                    result.get(keys.get(i)).add(dto);
+                }
+            }
+        }
+        return result;
+    }
+
+    //조건이 하나도 없으면 전체 회원과 일치
+    private Predicate conditionPredicate(MemberSearchCondition condition) {
+        BooleanBuilder builder = new BooleanBuilder()
+                .and(usernameEq(condition))
+                .and(teamNameEq(condition.getTeamName()))
+                .and(ageGoe(condition.getAgeGoe()))
+                .and(ageLoe(condition.getAgeLoe()));
+        return builder.hasValue() ? builder.getValue() : member.id.isNotNull();
+    }
+
+    //id 목록 조회: 입력 순서 유지, 없는 id 는 제외
+    @Override
+    public List<MemberTeamDto> findAllByIds(Collection<Long> ids) {
+        List<Callable<List<MemberTeamDto>>> tasks = new ArrayList<>();
+        for (List<Long> chunk : paddedChunks(ids)) {
+            tasks.add(() -> queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(chunk))
+                    .fetch());
+        }
+
+        //병렬 조회는 다른 스레드에서 (호출자 트랜잭션 밖에서) 실행되므로 트랜잭션이 없을 때만 사용한다.
+        List<List<MemberTeamDto>> results;
+        if (queryExecutor.isParallel() && tasks.size() > 1
+                && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            results = queryExecutor.invokeAll(tasks);
+        } else {
+            results = new ArrayList<>();
+            for (Callable<List<MemberTeamDto>> task : tasks) {
+                results.add(call(task));
+            }
+        }
+
+        Map<Long, MemberTeamDto> byId = new HashMap<>();
+        for (List<MemberTeamDto> rows : results) {
+            for (MemberTeamDto row : rows) {
+                byId.put(row.getMemberId(), row);
+            }
+        }
+        return inInputOrder(ids, byId);
+    }
+
+    //엔티티 조회는 현재 영속성 컨텍스트에 올려야 하므로 항상 호출 스레드에서 순차 실행
+    @Override
+    public List<Member> findMembersByIds(Collection<Long> ids) {
+        Map<Long, Member> byId = new HashMap<>();
+        for (List<Long> chunk : paddedChunks(ids)) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .where(member.id.in(chunk))
+                    .fetch();
+            for (Member found : members) {
+                byId.put(found.getId(), found);
+            }
+        }
+        return inInputOrder(ids, byId);
+    }
+
+    //in 절 크기가 요청마다 달라지면 SQL 문자열(= plan cache 항목)도 매번 달라지므로
+    //chunkSize 로 나누고 각 chunk 를 2의 거듭제곱 크기로 맞춘다. (마지막 id 반복)
+    private List<List<Long>> paddedChunks(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+        int chunkSize = Integer.highestOneBit(Math.max(1, properties.getMultiGet().getChunkSize()));
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<Long> chunk = new ArrayList<>(distinct.subList(from, Math.min(distinct.size(), from + chunkSize)));
+            int paddedSize = Integer.highestOneBit(chunk.size());
+            if (paddedSize < chunk.size()) {
+                paddedSize <<= 1;
+            }
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < paddedSize) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    //basicCase/complexCase 처럼 행마다 나이를 구간으로 바꾸지 않고, CASE + GROUP BY 로 DB 에서 집계한다. (회원 행을 가져오지 않음)
+    @Override
+    public List<AgeBucketCountDto> ageHistogram(AgeBuckets buckets) {
+        NumberExpression<Integer> bucket = ageBucket(buckets);
+        List<Tuple> rows = queryFactory
+                .select(team.name, bucket, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name, bucket)
+                .orderBy(team.name.asc().nullsLast(), bucket.asc())
+                .fetch();
+
+        List<AgeBucketCountDto> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            int index = row.get(1, Number.class).intValue();
+            result.add(new AgeBucketCountDto(row.get(team.name), buckets.label(index), row.get(member.count())));
+        }
+        return result;
+    }
+
+    //경계값은 바인딩 파라미터가 아니라 리터럴로 넣는다.
+    //파라미터로 바인딩되면 select 의 CASE 와 group by 의 CASE 가 다른 식으로 취급되어 group by 가 실패한다.
+    private NumberExpression<Integer> ageBucket(AgeBuckets buckets) {
+        List<Integer> boundaries = buckets.boundaries();
+        if (boundaries.isEmpty()) {
+            return literal(0);
+        }
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases = new CaseBuilder()
+                .when(member.age.loe(literal(boundaries.get(0)))).then(literal(0));
+        for (int i = 1; i < boundaries.size(); i++) {
+            cases = cases.when(member.age.loe(literal(boundaries.get(i)))).then(literal(i));
+        }
+        return cases.otherwise(literal(boundaries.size()));
+    }
+
+    private static NumberExpression<Integer> literal(int value) {
+        return Expressions.numberTemplate(Integer.class, Integer.toString(value));
+    }
+
+    //대량 저장: batchSize 개마다 flush 후 이번 batch 에서 저장한 엔티티만 detach 해서 영속성 컨텍스트가 계속 커지지 않게 한다.
+    //(em.clear 는 호출한 쪽 트랜잭션이 들고 있던 다른 엔티티까지 준영속으로 만들기 때문에 사용하지 않음)
+    //order_inserts / order_updates 설정으로 member, team insert 가 섞여도 테이블 별로 JDBC batch 로 묶인다.
+    //주의) 넘겨준 새 엔티티들은 저장 후 준영속 상태가 된다.
+    @Override
+    @Transactional
+    public BatchSaveResult saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+
+        //statement 수는 hibernate statistics(generate_statistics) 가 켜져 있을 때만 측정 가능
+        Statistics statistics = session.getSessionFactory().getStatistics();
+        long statementsBefore = statistics.isStatisticsEnabled() ? statistics.getPrepareStatementCount() : -1;
+
+        long start = System.nanoTime();
+        long count = 0;
+        long batches = 0;
+        List<Object> saved = new ArrayList<>();
+        try {
+            for (Member saving : members) {
+                Team savingTeam = saving.getTeam();
+                if (savingTeam != null && savingTeam.getId() == null) {
+                    em.persist(savingTeam); //새 팀은 같이 저장 (cascade 가 없으므로)
+                    saved.add(savingTeam);
+                }
+                if (saving.getId() == null) {
+                    em.persist(saving);
+                    saved.add(saving);
+                } else {
+                    saved.add(em.merge(saving)); //merge 가 만든 영속 엔티티 (넘겨준 엔티티는 그대로)
+                }
+
+                if (++count % batchSize == 0) {
+                    flushAndDetach(saved);
+                    batches++;
+                }
+            }
+            if (count % batchSize != 0) {
+                flushAndDetach(saved);
+                batches++;
+            }
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+
+        long statements = statementsBefore < 0 ? -1 : statistics.getPrepareStatementCount() - statementsBefore;
+        return new BatchSaveResult(count, batches, statements, System.nanoTime() - start);
+    }
+
+    private void flushAndDetach(List<Object> saved) {
+        em.flush();
+        for (Object entity : saved) {
+            em.detach(entity);
+        }
+        saved.clear();
+    }
+
+    private static <T> List<T> inInputOrder(Collection<Long> ids, Map<Long, T> byId) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T found = byId.get(id);
+            if (found != null) {
+                result.add(found);
+            }
+        }
+        return result;
+    }
 
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Pageable 의 Sort -> Querydsl OrderSpecifier 변환.
+ * 인덱스가 있는 속성만 허용하고, 페이지 간 순서가 흔들리지 않도록 항상 member.id 를 마지막 정렬 기준으로 붙인다.
+ */
+public class MemberSort {
+
+    //정렬 가능한 속성 (MemberTeamDto 필드명 -> 경로)
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of(
+            "username", member.username,
+            "age", member.age,
+            "teamName", team.name,
+            "memberId", member.id
+    );
+
+    //같은 속성의 메모리 정렬 (오름차순). null 은 H2 기본과 같이 오름차순에서 먼저, 내림차순에서 나중
+    private static final Map<String, Comparator<MemberTeamDto>> COMPARATORS = Map.of(
+            "username", Comparator.comparing(MemberTeamDto::getUsername, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "age", Comparator.comparingInt(MemberTeamDto::getAge),
+            "teamName", Comparator.comparing(MemberTeamDto::getTeamName, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "memberId", Comparator.comparing(MemberTeamDto::getMemberId, Comparator.nullsFirst(Comparator.naturalOrder()))
+    );
+
+    private MemberSort() {
+    }
+
+    public static OrderSpecifier<?>[] toOrderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new InvalidSortPropertyException(order.getProperty());
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+            hasId |= path == member.id;
+        }
+        if (!hasId) {
+            orders.add(new OrderSpecifier<>(Order.ASC, member.id)); //unique tiebreaker
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    //toOrderSpecifiers 와 같은 순서의 Comparator (샤드 별 정렬 결과를 합칠 때 사용)
+    public static Comparator<MemberTeamDto> toComparator(Sort sort) {
+        Comparator<MemberTeamDto> result = null;
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            Comparator<MemberTeamDto> comparator = COMPARATORS.get(order.getProperty());
+            if (comparator == null) {
+                throw new InvalidSortPropertyException(order.getProperty());
+            }
+            comparator = order.isAscending() ? comparator : comparator.reversed();
+            result = result == null ? comparator : result.thenComparing(comparator);
+            hasId |= order.getProperty().equals("memberId");
+        }
+        if (!hasId) {
+            Comparator<MemberTeamDto> byId = COMPARATORS.get("memberId");
+            result = result == null ? byId : result.thenComparing(byId);
+        }
+        return result;
+    }
+
+    //team 을 join 해야 정렬할 수 있는지
+    public static boolean requiresTeam(Sort sort) {
+        return sort.stream().anyMatch(order -> order.getProperty().equals("teamName"));
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.ageGoe;
+import static study.querydsl.repository.MemberPredicates.ageLoe;
+import static study.querydsl.repository.MemberPredicates.teamNameEq;
+import static study.querydsl.repository.MemberPredicates.usernameEq;
+
+/**
+ * 배치 작업용 대량 조회. MemberJpaRepository 의 findAll / searchMember 와 같은 조건을
+ * Hibernate StatelessSession 으로 실행해서 커서(ScrollableResults)로 한 건씩 넘겨준다.
+ * 영속성 컨텍스트(1차 캐시, 변경 감지)가 없으므로 행 수가 늘어도 힙이 커지지 않는다.
+ *
+ * - 스프링 트랜잭션과 별개의 커넥션을 쓴다. (아직 커밋되지 않은 데이터는 보이지 않음)
+ * - 넘겨받은 Member 는 준영속이다. 수정해도 반영되지 않고, 지연 로딩도 되지 않는다.
+ */
+@Repository
+public class MemberStatelessRepository {
+
+    private final SessionFactory sessionFactory;
+    private final MemberQueryProperties properties;
+
+    public MemberStatelessRepository(EntityManagerFactory emf, MemberQueryProperties properties) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.properties = properties;
+    }
+
+    //전체 회원. team 은 초기화되지 않은 프록시이므로 사용하지 않는다.
+    public long scanAll(Consumer<? super Member> action) {
+        return scroll(new JPAQuery<Void>()
+                .select(member)
+                .from(member), action);
+    }
+
+    //searchMember 와 같은 조건. team 은 fetch join 으로 같이 가져온다. (행 수 제한 없음)
+    public long scanMembers(MemberSearchCondition condition, Consumer<? super Member> action) {
+        return scroll(new JPAQuery<Void>()
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(
+                        usernameEq(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ), action);
+    }
+
+    //EntityManager 없이 Querydsl 로 JPQL 만 만들고, 실행은 StatelessSession 으로 한다.
+    private long scroll(JPQLQuery<Member> query, Consumer<? super Member> action) {
+        QueryMetadata metadata = query.getMetadata();
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(metadata, false, null);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Query<Member> hqlQuery = session.createQuery(serializer.toString(), Member.class);
+            JPAUtil.setConstants(hqlQuery, serializer.getConstants(), metadata.getParams());
+            hqlQuery.setFetchSize(properties.getScan().getFetchSize());
+
+            long count = 0;
+            try (ScrollableResults<Member> results = hqlQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    action.accept(results.get());
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 수 + 나이 히스토그램 통계.
+ * group by 쿼리 한 번으로 집계해 두고, 페이징의 전체 개수(count)를 추정하는데 사용한다.
+ * 전체 테이블을 읽는 집계이므로 요청 스레드가 아니라 스케줄러가 시작 직후, 그 뒤 refreshInterval 마다 다시 집계한다. (데이터 버전이 그대로면 생략)
+ * 아직 집계 전이면 추정하지 않는다. (호출하는 쪽이 정확한 count 사용)
+ * 오차 범위: 집계 후 바뀐 member 행 수 (DataVersionCounter.Changes). 행 하나가 바뀌면 어떤 조건의 count 든 최대 1 달라진다.
+ * 그 사이 팀이 수정/삭제되었으면 어느 회원이든 다른 팀으로 집계될 수 있으므로 전체 회원 수까지 달라질 수 있다.
+ */
+@Component
+public class MemberStatistics {
+
+    private final JPAQueryFactory queryFactory;
+    private final DataVersionCounter dataVersionCounter;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    //dataVersionCounter 가 null 이면 (샤드) 스케줄 집계도 없으므로 추정하지 않는다. (정확한 count 사용)
+    public MemberStatistics(JPAQueryFactory queryFactory, DataVersionCounter dataVersionCounter) {
+        this.queryFactory = queryFactory;
+        this.dataVersionCounter = dataVersionCounter;
+    }
+
+    //username 조건은 통계로 추정할 수 없다. (거의 unique)
+    public Optional<Estimate> estimate(MemberSearchCondition condition) {
+        Snapshot current = snapshot.get();
+        if (current == null || hasText(condition.getUsername())) {
+            return Optional.empty();
+        }
+
+        long count = 0;
+        for (Map.Entry<String, NavigableMap<Integer, Long>> entry : current.ageCountsByTeam.entrySet()) {
+            if (hasText(condition.getTeamName()) && !condition.getTeamName().equals(entry.getKey())) {
+                continue;
+            }
+            count += sum(entry.getValue(), condition.getAgeGoe(), condition.getAgeLoe());
+        }
+        return Optional.of(new Estimate(count, errorBound(current)));
+    }
+
+    private long errorBound(Snapshot snapshot) {
+        DataVersionCounter.Changes since = dataVersionCounter.changes().minus(snapshot.changes);
+        return since.teams() > 0 ? snapshot.total + since.members() : since.members();
+    }
+
+    private long sum(NavigableMap<Integer, Long> ageCounts, Integer ageGoe, Integer ageLoe) {
+        int from = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+        int to = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+        if (from > to) {
+            return 0;
+        }
+        long sum = 0;
+        for (Long count : ageCounts.subMap(from, true, to, true).values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private boolean isCurrent(Snapshot snapshot) {
+        return dataVersionCounter != null && snapshot.dataVersion.equals(dataVersionCounter.current());
+    }
+
+    @Scheduled(initialDelayString = "${member.query.approximate-count.initial-delay:0}",
+            fixedDelayString = "${member.query.approximate-count.refresh-interval:1m}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot.get();
+        if (current == null || !isCurrent(current)) {
+            refresh();
+        }
+    }
+
+    public Snapshot refresh() {
+        //집계 전에 읽는다. 집계 도중 커밋된 변경은 다음 집계 대상이고 그때까지 오차 범위에 들어간다.
+        DataVersionCounter.Stamp dataVersion = dataVersionCounter != null ? dataVersionCounter.current() : null;
+        DataVersionCounter.Changes changes = dataVersionCounter != null ? dataVersionCounter.changes() : null;
+        NumberExpression<Long> memberCount = member.count();
+        List<Tuple> rows = queryFactory
+                .select(team.name, member.age, memberCount)
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name, member.age)
+                .fetch();
+
+        Map<String, NavigableMap<Integer, Long>> ageCountsByTeam = new HashMap<>();
+        long total = 0;
+        for (Tuple row : rows) {
+            //팀이 없는 회원은 "" 로 모아둔다. (teamName 조건이 있으면 제외됨)
+            String teamName = row.get(team.name);
+            long count = row.get(memberCount);
+            ageCountsByTeam.computeIfAbsent(teamName != null ? teamName : "", key -> new TreeMap<>())
+                    .merge(row.get(member.age), count, Long::sum);
+            total += count;
+        }
+
+        Snapshot next = new Snapshot(ageCountsByTeam, total, dataVersion, changes);
+        snapshot.set(next);
+        return next;
+    }
+
+    //집계 전 상태로 (테스트용)
+    void reset() {
+        snapshot.set(null);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Estimate {
+        private final long count;
+        private final long errorBound;
+    }
+
+    public static class Snapshot {
+        private final Map<String, NavigableMap<Integer, Long>> ageCountsByTeam;
+        private final long total;
+        private final DataVersionCounter.Stamp dataVersion;
+        private final DataVersionCounter.Changes changes;
+
+        private Snapshot(Map<String, NavigableMap<Integer, Long>> ageCountsByTeam, long total,
+                         DataVersionCounter.Stamp dataVersion, DataVersionCounter.Changes changes) {
+            this.ageCountsByTeam = ageCountsByTeam;
+            this.total = total;
+            this.dataVersion = dataVersion;
+            this.changes = changes;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
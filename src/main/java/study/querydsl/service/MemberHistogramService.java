@@ -0,0 +1,94 @@
+package study.querydsl.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.change.ChangeSubscription;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.AgeBuckets;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.InvalidAgeBucketsException;
+import study.querydsl.repository.MemberQueryProperties;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 나이 구간 히스토그램 캐시.
+ * 결과에 영향을 주는 변경(회원 나이/팀, 회원 추가/삭제, 팀 이름)이 ChangeFeed 로 들어오면 캐시를 무효화한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberHistogramService {
+
+    private final MemberRepository memberRepository;
+    private final MemberQueryProperties properties;
+    private final ChangeFeed changeFeed;
+
+    private final Map<AgeBuckets, Cached> cache = new ConcurrentHashMap<>();
+    //이 version 보다 먼저 계산된 결과는 사용하지 않는다.
+    private final AtomicLong invalidatedVersion = new AtomicLong();
+    private ChangeSubscription subscription;
+
+    @PostConstruct
+    void subscribe() {
+        subscription = changeFeed.subscribe("member-histogram", this::onChange);
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        subscription.close();
+    }
+
+    public List<AgeBucketCountDto> ageHistogram(List<Integer> boundaries) {
+        AgeBuckets buckets = toBuckets(boundaries);
+        Cached cached = cache.get(buckets);
+        if (cached != null && cached.version >= invalidatedVersion.get()) {
+            return cached.result;
+        }
+
+        //조회 전에 version 을 읽는다. 조회 중에 커밋된 변경이 있으면 다음 조회에서 다시 계산된다.
+        long version = changeFeed.getVersion();
+        List<AgeBucketCountDto> result = List.copyOf(memberRepository.ageHistogram(buckets));
+        if (cache.size() >= properties.getHistogram().getMaxCachedBuckets()) {
+            cache.clear();
+        }
+        cache.put(buckets, new Cached(version, result));
+        return result;
+    }
+
+    private AgeBuckets toBuckets(List<Integer> boundaries) {
+        MemberQueryProperties.Histogram histogram = properties.getHistogram();
+        List<Integer> values = boundaries == null || boundaries.isEmpty() ? histogram.getDefaultBoundaries() : boundaries;
+        if (values.size() + 1 > histogram.getMaxBuckets()) {
+            throw new InvalidAgeBucketsException("too many age buckets: " + (values.size() + 1));
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null || values.get(i) < 0 || (i > 0 && values.get(i) <= values.get(i - 1))) {
+                throw new InvalidAgeBucketsException("age boundaries must be ascending non-negative numbers: " + values);
+            }
+        }
+        return new AgeBuckets(values);
+    }
+
+    private void onChange(ChangeEvent event) {
+        boolean affected = event.isReset()
+                || event.affects(Member.class, "age")
+                || event.affects(Member.class, "team")
+                || event.affects(Team.class, "name")
+                || (Member.class.equals(event.entityType()) && event.isBulk());
+        if (affected) {
+            invalidatedVersion.accumulateAndGet(event.version(), Math::max);
+        }
+    }
+
+    private record Cached(long version, List<AgeBucketCountDto> result) {
+    }
+}
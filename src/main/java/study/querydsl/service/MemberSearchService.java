@@ -0,0 +1,204 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import study.querydsl.cache.MemberPageCache;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.deadline.RequestDeadline;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.dto.SearchPage;
+import study.querydsl.dto.TokenPage;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.SingleFlight;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * MemberRepositoryCustom 검색 앞단.
+ * 같은 조건 + 같은 Pageable 로 동시에 들어온 검색은 DB 조회(content + count)를 한 번만 실행하고 결과를 공유한다.
+ */
+@Service
+public class MemberSearchService {
+
+    private final MemberRepository memberRepository;
+    private final SearchCoalescingProperties properties;
+    private final MemberPageCache pageCache;
+    private final PageTokenCodec pageTokenCodec;
+    private final PageTokenProperties pageTokenProperties;
+    private final DataVersionCounter dataVersionCounter;
+
+    private final Counter tokenReused;
+    private final Counter tokenStale;
+    private final Counter tokenInvalid;
+
+    private final SingleFlight<SearchKey, List<MemberTeamDto>> searchFlight = deadlineAwareFlight();
+    private final SingleFlight<SearchKey, Page<MemberTeamDto>> pageFlight = deadlineAwareFlight();
+    private final SingleFlight<SearchKey, Slice<MemberTeamDto>> sliceFlight = deadlineAwareFlight();
+
+    public MemberSearchService(MemberRepository memberRepository,
+                               SearchCoalescingProperties properties,
+                               MemberPageCache pageCache,
+                               PageTokenCodec pageTokenCodec,
+                               PageTokenProperties pageTokenProperties,
+                               DataVersionCounter dataVersionCounter,
+                               MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        this.properties = properties;
+        this.pageCache = pageCache;
+        this.pageTokenCodec = pageTokenCodec;
+        this.pageTokenProperties = pageTokenProperties;
+        this.dataVersionCounter = dataVersionCounter;
+        this.tokenReused = pageTokenCounter(meterRegistry, "reused");
+        this.tokenStale = pageTokenCounter(meterRegistry, "stale");
+        this.tokenInvalid = pageTokenCounter(meterRegistry, "invalid");
+        registerMetrics(meterRegistry, "search", searchFlight);
+        registerMetrics(meterRegistry, "page", pageFlight);
+        registerMetrics(meterRegistry, "slice", sliceFlight);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return coalesce(searchFlight, new SearchKey("search", copyOf(condition), null, null),
+                () -> memberRepository.search(condition));
+    }
+
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(pageFlight, new SearchKey("searchPageSimple", copyOf(condition), pageable, null),
+                () -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageComplex(condition, pageable, new PageSearchOptions());
+    }
+
+    //영속 페이지 캐시(MemberPageCache) -> 동시 요청 합치기 -> DB 순서로 조회
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PageSearchOptions options) {
+        DataVersionCounter.Stamp dataVersion = pageCache.isEnabled() ? dataVersionCounter.current() : null;
+        return searchPageComplex(condition, pageable, options, dataVersion);
+    }
+
+    //이전 페이지에서 받은 page token 이 유효하면 (조건, 데이터 버전이 같음) 전체 개수를 재사용해서 count 쿼리를 생략한다.
+    //정확한 전체 개수로 응답한 경우에만 다음 token 을 발급한다. (추정치/부분 결과는 발급하지 않음)
+    public TokenPage<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable,
+                                                      PageSearchOptions options, String pageToken) {
+        if (!pageTokenProperties.isEnabled()) {
+            return new TokenPage<>(searchPageComplex(condition, pageable, options), null);
+        }
+
+        //조회 전에 읽은 버전으로 발급해야 조회 도중 커밋된 변경이 있을 때 token 이 바로 stale 이 된다.
+        DataVersionCounter.Stamp dataVersion = dataVersionCounter.current();
+        PageSearchOptions effective = options;
+        if (pageToken != null) {
+            Optional<Long> total = pageTokenCodec.decodeTotal(pageToken, condition, dataVersion);
+            if (total.isPresent()) {
+                effective = options.withKnownTotal(total.get());
+                tokenReused.increment();
+            } else if (pageTokenCodec.isAuthentic(pageToken)) {
+                tokenStale.increment();
+            } else {
+                tokenInvalid.increment();
+            }
+        }
+
+        Page<MemberTeamDto> page = searchPageComplex(condition, pageable, effective, dataVersion);
+        String nextToken = page instanceof SearchPage
+                ? null
+                : pageTokenCodec.encode(condition, page.getTotalElements(), dataVersion);
+        return new TokenPage<>(page, nextToken);
+    }
+
+    //dataVersion: 페이지 캐시를 쓰지 않으면 null
+    private Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PageSearchOptions options,
+                                                  DataVersionCounter.Stamp dataVersion) {
+        SearchKey key = new SearchKey("searchPageComplex", copyOf(condition), pageable, copyOf(options));
+        String cacheKey = key.toString();
+        if (dataVersion != null) {
+            Optional<Page<MemberTeamDto>> cached = pageCache.get(cacheKey, pageable);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        Page<MemberTeamDto> page = coalesce(pageFlight, key,
+                () -> memberRepository.searchPageComplex(condition, pageable, options));
+        //추정 count 결과는 캐시하지 않는다.
+        if (dataVersion != null && !(page instanceof SearchPage)) {
+            pageCache.put(cacheKey, dataVersion, page);
+        }
+        return page;
+    }
+
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(sliceFlight, new SearchKey("searchSlice", copyOf(condition), pageable, null),
+                () -> memberRepository.searchSlice(condition, pageable));
+    }
+
+    private <V> V coalesce(SingleFlight<SearchKey, V> flight, SearchKey key, Supplier<V> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        return flight.execute(key, waitTimeout(), loader);
+    }
+
+    //leader 를 기다리는 시간도 자기 요청의 남은 시간을 넘지 않는다. (넘으면 직접 조회 -> 자기 제한 시간으로 실패/부분 결과)
+    private Duration waitTimeout() {
+        Duration timeout = properties.getTimeout();
+        Optional<RequestDeadline> deadline = RequestDeadline.current();
+        if (deadline.isPresent()) {
+            Duration remaining = Duration.ofMillis(Math.max(0, deadline.get().remainingMillis()));
+            return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+        }
+        return timeout;
+    }
+
+    //제한 시간은 요청마다 다르므로 leader 의 제한 시간 초과(예외)와 부분 결과는 다른 요청에 나눠주지 않는다.
+    private static <V> SingleFlight<SearchKey, V> deadlineAwareFlight() {
+        return new SingleFlight<>(
+                value -> RequestDeadline.current().map(deadline -> !deadline.isPartial()).orElse(true),
+                e -> !RequestDeadline.isTimeout(e));
+    }
+
+    //key 로 쓰는 동안 호출자가 condition 을 바꿔도 영향이 없도록 복사해 둔다.
+    private MemberSearchCondition copyOf(MemberSearchCondition condition) {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        BeanUtils.copyProperties(condition, copy);
+        return copy;
+    }
+
+    private PageSearchOptions copyOf(PageSearchOptions options) {
+        PageSearchOptions copy = new PageSearchOptions();
+        BeanUtils.copyProperties(options, copy);
+        return copy;
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry, String type, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("member.search.coalescing.executed", flight, SingleFlight::getExecuted)
+                .tag("type", type)
+                .register(meterRegistry);
+        FunctionCounter.builder("member.search.coalescing.coalesced", flight, SingleFlight::getCoalesced)
+                .tag("type", type)
+                .register(meterRegistry);
+        FunctionCounter.builder("member.search.coalescing.timeouts", flight, SingleFlight::getTimeouts)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static Counter pageTokenCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.search.page-token")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record SearchKey(String method, MemberSearchCondition condition, Pageable pageable, PageSearchOptions options) {
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * 페이지 이동 시 전체 개수를 다시 세지 않도록 클라이언트에게 주는 token.
+ * payload(검색 조건 해시, 전체 개수, 데이터 버전(epoch, version), 발급 시각) + HMAC-SHA256 서명 (base64url, "payload.mac")
+ * 클라이언트가 값을 바꾸면 서명이 맞지 않으므로 전체 개수를 믿고 쓸 수 있다.
+ * 데이터 버전은 DB 의 data_version 행이라 secret 을 공유하는 다른 인스턴스, 재시작 후에도 같은 의미를 가진다.
+ */
+@Slf4j
+@Component
+public class PageTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT = 2;
+    private static final int PAYLOAD_SIZE = 1 + Long.BYTES * 5;
+    private static final int MAC_SIZE = 16; //HMAC-SHA256 앞 128 bit
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final PageTokenProperties properties;
+    private final Clock clock;
+
+    public PageTokenCodec(PageTokenProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    PageTokenCodec(PageTokenProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        byte[] secret = properties.getSecret().getBytes(StandardCharsets.UTF_8);
+        if (secret.length == 0) {
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            log.info("member.search.page-token.secret is not set; page tokens are valid only for this instance until restart");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    public String encode(MemberSearchCondition condition, long total, DataVersionCounter.Stamp dataVersion) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_SIZE)
+                .put(FORMAT)
+                .putLong(conditionHash(condition))
+                .putLong(total)
+                .putLong(dataVersion.epoch())
+                .putLong(dataVersion.version())
+                .putLong(clock.millis());
+        byte[] bytes = payload.array();
+        return ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(mac(bytes));
+    }
+
+    //서명, 조건, 버전, ttl 이 모두 맞을 때만 전체 개수. 아니면 empty (다시 count)
+    public Optional<Long> decodeTotal(String token, MemberSearchCondition condition, DataVersionCounter.Stamp currentVersion) {
+        Optional<ByteBuffer> payload = verify(token);
+        if (payload.isEmpty()) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = payload.get();
+        long conditionHash = buffer.getLong();
+        long total = buffer.getLong();
+        long epoch = buffer.getLong();
+        long version = buffer.getLong();
+        long issuedAt = buffer.getLong();
+
+        if (conditionHash != conditionHash(condition)
+                || epoch != currentVersion.epoch()
+                || version != currentVersion.version()
+                || clock.millis() - issuedAt > properties.getTtl().toMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(total);
+    }
+
+    //형식이나 서명이 잘못된 token 인지 (metric 구분용)
+    public boolean isAuthentic(String token) {
+        return verify(token).isPresent();
+    }
+
+    private Optional<ByteBuffer> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] mac = DECODER.decode(token.substring(dot + 1));
+            if (payload.length != PAYLOAD_SIZE || payload[0] != FORMAT || !MessageDigest.isEqual(mac, mac(payload))) {
+                return Optional.empty();
+            }
+            return Optional.of(ByteBuffer.wrap(payload, 1, PAYLOAD_SIZE - 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty(); //base64 가 아님
+        }
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM); //Mac 은 thread-safe 하지 않으므로 매번 생성
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(payload), MAC_SIZE);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //전체 개수에 영향을 주는 값만 (정렬, 페이지 크기는 제외)
+    private static long conditionHash(MemberSearchCondition condition) {
+        String canonical = String.join("\u0000",
+                String.valueOf(condition.getUsername()),
+                String.valueOf(condition.isUsernameIgnoreCase()),
+                String.valueOf(condition.getTeamName()),
+                String.valueOf(condition.getAgeGoe()),
+                String.valueOf(condition.getAgeLoe()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.page-token")
+public class PageTokenProperties {
+
+    private boolean enabled = true;
+
+    //HMAC 키. 비어 있으면 시작할 때 랜덤 생성 (재시작하거나 서버가 여러 대면 token 이 서로 호환되지 않음)
+    private String secret = "";
+
+    //데이터 버전이 같아도 이 시간이 지난 token 은 사용하지 않는다.
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,17 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.coalescing")
+public class SearchCoalescingProperties {
+
+    private boolean enabled = true;
+
+    //먼저 실행 중인 동일 검색을 최대 얼마나 기다릴지 (넘으면 직접 조회)
+    private Duration timeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,127 @@
+package study.querydsl.sharding;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.deadline.DeadlineAwareJPAQueryFactory;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberQueryExecutor;
+import study.querydsl.repository.MemberQueryProperties;
+import study.querydsl.repository.MemberRepositoryImpl;
+import study.querydsl.repository.MemberStatistics;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * 샤드 하나: 자체 DataSource + EntityManagerFactory + 트랜잭션 매니저, 그리고 그 위의 MemberRepositoryImpl.
+ * 스프링 빈이 아니므로 기본 EntityManagerFactory 자동 설정에 영향을 주지 않는다.
+ */
+class MemberShard implements AutoCloseable {
+
+    //id 상위 비트에 샤드 번호를 넣는다. 샤드 i 의 시퀀스는 i << SHARD_SHIFT 부터 시작한다.
+    static final int SHARD_SHIFT = 48;
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final LocalContainerEntityManagerFactoryBean emfBean;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberRepositoryImpl repository;
+
+    MemberShard(int index, ShardingProperties.Shard shard, EntityManagerFactoryBuilder builder,
+                Map<String, Object> jpaProperties, MemberQueryProperties queryProperties,
+                MemberQueryExecutor queryExecutor) {
+        this.index = index;
+        this.dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(shard.getUrl())
+                .username(shard.getUsername())
+                .password(shard.getPassword())
+                .build();
+        this.dataSource.setPoolName("member-shard-" + index);
+
+        this.emfBean = builder
+                .dataSource(dataSource)
+                .packages(Member.class)
+                .persistenceUnit("member-shard-" + index)
+                .properties(jpaProperties)
+                .build();
+        this.emfBean.afterPropertiesSet();
+        EntityManagerFactory emf = emfBean.getObject();
+
+        offsetSequences();
+
+        //트랜잭션 밖에서는 호출마다 새 EntityManager, transactionTemplate 안에서는 그 트랜잭션의 EntityManager
+        this.em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        this.transactionTemplate = new TransactionTemplate(new JpaTransactionManager(emf));
+        //샤드 변경은 변경 피드에 기록하지 않으므로 (ShardedMemberRepository 참고) tracking 없이 query timeout 만 적용
+        JPAQueryFactory queryFactory = new DeadlineAwareJPAQueryFactory(em);
+        this.repository = new MemberRepositoryImpl(em, queryFactory, new MemberStatistics(queryFactory, null),
+                queryProperties, queryExecutor);
+    }
+
+    static int shardOf(long id) {
+        return (int) (id >>> SHARD_SHIFT);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    MemberRepositoryImpl repository() {
+        return repository;
+    }
+
+    EntityManager entityManager() {
+        return em;
+    }
+
+    TransactionTemplate transactionTemplate() {
+        return transactionTemplate;
+    }
+
+    //pooled optimizer 는 시퀀스 값 v 를 받으면 v-49 ~ v 를 쓰므로, base + allocationSize 로 시작해야 base 아래 id 가 나오지 않는다.
+    //이미 옮겨진 시퀀스(재시작)는 그대로 둔다.
+    private void offsetSequences() {
+        long base = (long) index << SHARD_SHIFT;
+        if (base == 0) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            Map<String, Integer> sequences = Map.of(
+                    Member.ID_SEQUENCE, Member.ID_ALLOCATION_SIZE,
+                    Team.ID_SEQUENCE, Team.ID_ALLOCATION_SIZE);
+            for (Map.Entry<String, Integer> sequence : sequences.entrySet()) {
+                long current;
+                try (ResultSet resultSet = statement.executeQuery("select next value for " + sequence.getKey())) {
+                    resultSet.next();
+                    current = resultSet.getLong(1);
+                }
+                if (current < base) {
+                    statement.execute("alter sequence " + sequence.getKey() + " restart with " + (base + sequence.getValue()));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to offset id sequences of shard " + index, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        emfBean.destroy();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,373 @@
+package study.querydsl.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.AgeBuckets;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.dto.SearchPage;
+import study.querydsl.deadline.RequestDeadline;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.BatchSaveResult;
+import study.querydsl.repository.MemberQueryExecutor;
+import study.querydsl.repository.MemberQueryProperties;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberSort;
+import study.querydsl.support.KWayMerge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 여러 DB 에 나눠 저장된 회원 조회/저장 (member.sharding.enabled=true 일 때만 등록).
+ *
+ * - 회원은 팀이 있는 샤드에 저장한다. 팀이 없는 회원은 username 해시, 새 팀은 팀 이름 해시로 샤드를 고른다.
+ * - 샤드 i 의 id 는 i << 48 부터 발급되므로 id 만 보고 소유 샤드를 알 수 있다. (id 로 조회 / 수정 라우팅)
+ * - 검색은 모든 샤드에 병렬로 보내고, 페이징은 샤드마다 0 ~ offset+size 를 정렬해서 가져와 k-way merge, 전체 개수는 샤드 합.
+ *   offset 이 깊을수록 샤드마다 읽는 양이 늘어난다.
+ * - 샤드 간 트랜잭션은 없다. 다른 샤드 팀으로 회원을 옮기는 것은 지원하지 않는다.
+ * - 조회된 엔티티는 준영속이고, 변경 피드(ChangeFeed)에는 기록되지 않는다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "member.sharding", name = "enabled", havingValue = "true")
+public class ShardedMemberRepository implements MemberRepositoryCustom {
+
+    private static final Comparator<MemberTeamDto> BY_ID = MemberSort.toComparator(Sort.by("memberId"));
+
+    private final List<MemberShard> shards;
+    private final ExecutorService executor;
+
+    public ShardedMemberRepository(ShardingProperties properties, EntityManagerFactoryBuilder builder,
+                                   JpaProperties jpaProperties, HibernateProperties hibernateProperties,
+                                   MemberQueryProperties queryProperties, MemberQueryExecutor queryExecutor,
+                                   Environment environment) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("member.sharding.shards must not be empty");
+        }
+        //기본 EntityManagerFactory 와 같은 hibernate 설정 (naming strategy, batch 등) + 샤드용 ddl-auto
+        Map<String, Object> vendorProperties = hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings().ddlAuto(properties::getDdlAuto));
+
+        List<MemberShard> created = new ArrayList<>();
+        try {
+            for (int i = 0; i < properties.getShards().size(); i++) {
+                created.add(new MemberShard(i, properties.getShards().get(i), builder, vendorProperties,
+                        queryProperties, queryExecutor));
+            }
+        } catch (RuntimeException e) {
+            created.forEach(MemberShard::close);
+            throw e;
+        }
+        this.shards = List.copyOf(created);
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("member-shard-", 0).factory())
+                : Executors.newFixedThreadPool(shards.size(), new CustomizableThreadFactory("member-shard-"));
+    }
+
+    //id 를 발급한 샤드 번호
+    public static int shardOf(long id) {
+        return MemberShard.shardOf(id);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        fanOut(shard -> shard.repository().search(condition)).forEach(result::addAll);
+        return result;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        Pageable top = topOf(pageable);
+        return mergePages(fanOut(shard -> shard.repository().searchPageSimple(condition, top)), pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageComplex(condition, pageable, new PageSearchOptions());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PageSearchOptions options) {
+        Pageable top = topOf(pageable);
+        Page<MemberTeamDto> merged = mergePages(fanOut(shard -> shard.repository().searchPageComplex(condition, top, options)), pageable);
+        //page token 의 전체 개수는 모든 샤드의 합이므로 샤드 별 total 대신 사용
+        if (options.getKnownTotal() != null) {
+            return PageableExecutionUtils.getPage(merged.getContent(), pageable, () -> options.getKnownTotal());
+        }
+        return merged;
+    }
+
+    //샤드 중 하나라도 다음 행이 있거나, 합친 결과가 size 보다 많으면 다음 페이지가 있다.
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        Pageable top = topOf(pageable);
+        List<Slice<MemberTeamDto>> slices = fanOut(shard -> shard.repository().searchSlice(condition, top));
+
+        List<MemberTeamDto> content = KWayMerge.merge(slices.stream().map(Slice::getContent).toList(),
+                MemberSort.toComparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize() || slices.stream().anyMatch(Slice::hasNext);
+        if (content.size() > pageable.getPageSize()) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    //key 별로 샤드 결과를 member.id 순서로 합친다. (단일 DB 와 같은 순서)
+    @Override
+    public <K> Map<K, List<MemberTeamDto>> searchBatch(Map<K, MemberSearchCondition> conditions) {
+        List<Map<K, List<MemberTeamDto>>> results = fanOut(shard -> shard.repository().searchBatch(conditions));
+
+        Map<K, List<MemberTeamDto>> merged = new LinkedHashMap<>();
+        for (K key : conditions.keySet()) {
+            List<List<MemberTeamDto>> perShard = results.stream().map(result -> result.get(key)).toList();
+            merged.put(key, KWayMerge.merge(perShard, BY_ID, 0, Integer.MAX_VALUE));
+        }
+        return merged;
+    }
+
+    @Override
+    public List<MemberTeamDto> findAllByIds(Collection<Long> ids) {
+        Map<Long, MemberTeamDto> byId = new HashMap<>();
+        for (List<MemberTeamDto> rows : fanOut(idsByShard(ids), (shard, shardIds) -> shard.repository().findAllByIds(shardIds))) {
+            for (MemberTeamDto row : rows) {
+                byId.put(row.getMemberId(), row);
+            }
+        }
+        return inInputOrder(ids, byId);
+    }
+
+    //샤드 EntityManager 는 조회가 끝나면 닫히므로 준영속 엔티티가 반환된다. (team 지연 로딩 불가)
+    @Override
+    public List<Member> findMembersByIds(Collection<Long> ids) {
+        Map<Long, Member> byId = new HashMap<>();
+        for (List<Member> members : fanOut(idsByShard(ids), (shard, shardIds) -> shard.repository().findMembersByIds(shardIds))) {
+            for (Member found : members) {
+                byId.put(found.getId(), found);
+            }
+        }
+        return inInputOrder(ids, byId);
+    }
+
+    //팀 이름이 같은 팀이 여러 샤드에 있을 수 있으므로 (팀 이름, 구간) 별로 더한다. 순서는 단일 DB 와 같음 (팀 이름, null 은 마지막)
+    @Override
+    public List<AgeBucketCountDto> ageHistogram(AgeBuckets buckets) {
+        Map<String, Integer> bucketIndex = new HashMap<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            bucketIndex.put(buckets.label(i), i);
+        }
+
+        Map<String, TreeMap<Integer, Long>> counts = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+        for (List<AgeBucketCountDto> rows : fanOut(shard -> shard.repository().ageHistogram(buckets))) {
+            for (AgeBucketCountDto row : rows) {
+                counts.computeIfAbsent(row.getTeamName(), key -> new TreeMap<>())
+                        .merge(bucketIndex.get(row.getAgeRange()), row.getCount(), Long::sum);
+            }
+        }
+
+        List<AgeBucketCountDto> result = new ArrayList<>();
+        counts.forEach((teamName, byBucket) -> byBucket.forEach((bucket, count) ->
+                result.add(new AgeBucketCountDto(teamName, buckets.label(bucket), count))));
+        return result;
+    }
+
+    //새 팀을 먼저 저장해서 소유 샤드를 정한 뒤, 샤드별로 나눠 각 샤드 트랜잭션에서 저장한다.
+    //샤드 간 원자성은 없다. (한 샤드가 실패해도 다른 샤드 저장은 커밋됨)
+    @Override
+    public BatchSaveResult saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize); //새 팀을 저장하기 전에 확인
+        }
+        long start = System.nanoTime();
+        Map<Integer, List<Member>> byShard = new TreeMap<>();
+        for (Member saving : members) {
+            Team savingTeam = saving.getTeam();
+            if (savingTeam != null && savingTeam.getId() == null) {
+                save(savingTeam);
+            }
+            byShard.computeIfAbsent(shardFor(saving), key -> new ArrayList<>()).add(saving);
+        }
+
+        List<BatchSaveResult> results = fanOut(byShard, (shard, group) -> shard.transactionTemplate()
+                .execute(status -> shard.repository().saveAllBatched(group, batchSize)));
+
+        long entities = 0;
+        long batches = 0;
+        long statements = 0;
+        for (BatchSaveResult result : results) {
+            entities += result.getEntityCount();
+            batches += result.getBatchCount();
+            statements = statements < 0 || result.getStatementCount() < 0 ? -1 : statements + result.getStatementCount();
+        }
+        return new BatchSaveResult(entities, batches, statements, System.nanoTime() - start);
+    }
+
+    //소유 샤드에 저장 (새 팀이면 팀부터)
+    public Member save(Member member) {
+        Team team = member.getTeam();
+        if (team != null && team.getId() == null) {
+            save(team);
+        }
+        return persistOrMerge(shards.get(shardFor(member)), member, member.getId());
+    }
+
+    public Team save(Team team) {
+        int index = team.getId() != null
+                ? owningShard(team.getId())
+                : Math.floorMod(Objects.hashCode(team.getName()), shards.size());
+        return persistOrMerge(shards.get(index), team, team.getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        shards.forEach(MemberShard::close);
+    }
+
+    private static <T> T persistOrMerge(MemberShard shard, T entity, Long id) {
+        return shard.transactionTemplate().execute(status -> {
+            if (id == null) {
+                shard.entityManager().persist(entity);
+                return entity;
+            }
+            return shard.entityManager().merge(entity);
+        });
+    }
+
+    private int shardFor(Member member) {
+        Team team = member.getTeam();
+        Integer teamShard = team != null && team.getId() != null ? owningShard(team.getId()) : null;
+        if (member.getId() == null) {
+            return teamShard != null ? teamShard : Math.floorMod(Objects.hashCode(member.getUsername()), shards.size());
+        }
+        int memberShard = owningShard(member.getId());
+        if (teamShard != null && teamShard != memberShard) {
+            throw new IllegalArgumentException("member " + member.getId() + " is stored in shard " + memberShard
+                    + " but team " + team.getId() + " in shard " + teamShard + "; moving members between shards is not supported");
+        }
+        return memberShard;
+    }
+
+    private int owningShard(long id) {
+        int index = shardOf(id);
+        if (index >= shards.size()) {
+            throw new IllegalArgumentException("id " + id + " does not belong to any of " + shards.size() + " shards");
+        }
+        return index;
+    }
+
+    //어느 샤드에도 속하지 않는 id 는 없는 id 로 취급
+    private Map<Integer, List<Long>> idsByShard(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long id : ids) {
+            if (id != null && shardOf(id) < shards.size()) {
+                byShard.computeIfAbsent(shardOf(id), key -> new ArrayList<>()).add(id);
+            }
+        }
+        return byShard;
+    }
+
+    //각 샤드에서 가져와야 하는 범위: 0 ~ offset+size
+    private static Pageable topOf(Pageable pageable) {
+        return PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+    }
+
+    private static Page<MemberTeamDto> mergePages(List<Page<MemberTeamDto>> pages, Pageable pageable) {
+        List<MemberTeamDto> content = KWayMerge.merge(pages.stream().map(Page::getContent).toList(),
+                MemberSort.toComparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+
+        long total = 0;
+        boolean approximate = false;
+        long errorBound = 0;
+        for (Page<MemberTeamDto> page : pages) {
+            total += page.getTotalElements();
+            if (page instanceof SearchPage<MemberTeamDto> searchPage && searchPage.isTotalApproximate()) {
+                approximate = true;
+                errorBound += searchPage.getTotalErrorBound();
+            }
+        }
+        return approximate
+                ? new SearchPage<>(content, pageable, total, true, errorBound)
+                : new PageImpl<>(content, pageable, total);
+    }
+
+    private <T> List<T> fanOut(Function<MemberShard, T> call) {
+        List<Callable<T>> tasks = new ArrayList<>(shards.size());
+        for (MemberShard shard : shards) {
+            tasks.add(RequestDeadline.propagate(() -> call.apply(shard)));
+        }
+        return invokeAll(tasks);
+    }
+
+    private <X, T> List<T> fanOut(Map<Integer, List<X>> groups, BiFunction<MemberShard, List<X>, T> call) {
+        List<Callable<T>> tasks = new ArrayList<>(groups.size());
+        groups.forEach((index, group) -> tasks.add(RequestDeadline.propagate(() -> call.apply(shards.get(index), group))));
+        return invokeAll(tasks);
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while querying member shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T> List<T> inInputOrder(Collection<Long> ids, Map<Long, T> byId) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T found = byId.get(id);
+            if (found != null) {
+                result.add(found);
+            }
+        }
+        return result;
+    }
+}
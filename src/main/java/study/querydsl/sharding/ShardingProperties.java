@@ -0,0 +1,29 @@
+package study.querydsl.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.sharding")
+public class ShardingProperties {
+
+    //true 면 ShardedMemberRepository 를 등록한다. (기본 MemberRepository 는 그대로)
+    private boolean enabled = false;
+
+    //샤드 DB 스키마 생성 방식 (none, validate, update, create, create-drop)
+    private String ddlAuto = "none";
+
+    //순서가 샤드 번호가 된다. 한번 데이터가 들어간 뒤에는 순서를 바꾸면 안된다.
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter @Setter
+    public static class Shard {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 각각 정렬된 목록 k 개를 하나의 정렬된 순서로 합친다. (heap 크기 k, 필요한 만큼만 꺼냄)
+ * 같은 값이면 앞 목록이 먼저 나온다.
+ */
+public class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    //합친 순서에서 skip 개를 건너뛰고 최대 limit 개
+    public static <T> List<T> merge(List<? extends List<? extends T>> sortedLists, Comparator<? super T> comparator,
+                                    long skip, int limit) {
+        long size = 0;
+        for (List<? extends T> list : sortedLists) {
+            size += list.size();
+        }
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>((a, b) -> {
+            int compared = comparator.compare(a.current(), b.current());
+            return compared != 0 ? compared : Integer.compare(a.source, b.source);
+        });
+        for (int i = 0; i < sortedLists.size(); i++) {
+            if (!sortedLists.get(i).isEmpty()) {
+                heap.add(new Cursor<>(i, sortedLists.get(i)));
+            }
+        }
+
+        List<T> result = new ArrayList<>((int) Math.max(0, Math.min(limit, size - skip)));
+        long skipped = 0;
+        while (!heap.isEmpty() && result.size() < limit) {
+            Cursor<T> cursor = heap.poll();
+            T next = cursor.current();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                result.add(next);
+            }
+            if (++cursor.position < cursor.list.size()) {
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    private static final class Cursor<T> {
+        private final int source;
+        private final List<? extends T> list;
+        private int position;
+
+        private Cursor(int source, List<? extends T> list) {
+            this.source = source;
+            this.list = list;
+        }
+
+        private T current() {
+            return list.get(position);
+        }
+    }
+}
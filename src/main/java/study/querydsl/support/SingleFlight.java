@@ -0,0 +1,115 @@
+package study.querydsl.support;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key 로 동시에 들어온 호출은 먼저 들어온 호출(leader)의 실행 결과를 같이 사용한다.
+ * leader 가 timeout 안에 끝나지 않으면 기다리던 호출은 직접 실행한다.
+ * leader 에게만 해당하는 결과/예외 (예: leader 요청의 제한 시간 초과)는 shareResult/shareFailure 로 걸러서
+ * 기다리던 호출이 직접 실행하게 한다. (shareResult/shareFailure 는 leader 스레드에서 호출된다)
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+    private final Predicate<? super V> shareResult;
+    private final Predicate<? super Throwable> shareFailure;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight() {
+        this(value -> true, e -> true);
+    }
+
+    public SingleFlight(Predicate<? super V> shareResult, Predicate<? super Throwable> shareFailure) {
+        this.shareResult = shareResult;
+        this.shareFailure = shareFailure;
+    }
+
+    public V execute(K key, Duration timeout, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inflight.putIfAbsent(key, created);
+
+        if (existing == null) {
+            return lead(key, created, loader);
+        }
+
+        coalesced.increment();
+        try {
+            return existing.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            executed.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NotShared) {
+                executed.increment();
+                return loader.get();
+            }
+            //leader 의 예외를 그대로 전달
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for " + key, e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> future, Supplier<V> loader) {
+        executed.increment();
+        try {
+            V value = loader.get();
+            if (shareResult.test(value)) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(NotShared.INSTANCE);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(shareFailure.test(e) ? e : NotShared.INSTANCE);
+            throw e;
+        } finally {
+            inflight.remove(key, future);
+        }
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public int getInflight() {
+        return inflight.size();
+    }
+
+    //leader 결과를 나눠 쓰지 않음 -> 기다리던 호출이 직접 실행
+    private static final class NotShared extends RuntimeException {
+
+        private static final NotShared INSTANCE = new NotShared();
+
+        private NotShared() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.age-increment")
+public class AgeIncrementProperties {
+
+    //lock 을 나눌 구간 수 (2의 거듭제곱으로 올림)
+    private int stripes = 16;
+
+    //주기적으로 모아둔 증가분을 DB 에 반영
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    //대기 중인 회원 수가 이만큼 쌓이면 주기를 기다리지 않고 반영
+    private int flushThreshold = 10_000;
+
+    //JDBC batch 크기 (flush 한 번은 batch 크기와 상관없이 한 트랜잭션)
+    private int batchSize = 1_000;
+}
@@ -0,0 +1,325 @@
+package study.querydsl.writebehind;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.change.ChangeOperation;
+import study.querydsl.entity.Member;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 나이 증가분(age = age + delta) write-behind 버퍼.
+ * 이벤트마다 update + commit 하는 대신 회원별 증가분을 메모리에 합쳐 두었다가
+ * 주기(flushInterval) 또는 대기 회원 수(flushThreshold)마다 JDBC batch update 한 번(한 트랜잭션)으로 반영한다.
+ * <ul>
+ *     <li>회원 id 로 stripe 를 나눈다. 증가는 stripe 의 read lock + ConcurrentHashMap 이라 서로 막지 않고,
+ *     flush 는 write lock 으로 map 을 바꿔치기하는 순간만 막는다.</li>
+ *     <li>flush 는 stripe 마다 flushLock 을 커밋까지 잡는다. flush(ids) 가 끝나면 그 회원의 증가분은 모두 DB 에 있다.
+ *     정확한 나이가 필요한 조회는 flush(ids) 후에 조회하거나 getAge 를 쓴다.</li>
+ *     <li>반영에 실패하면 증가분을 버퍼에 되돌려 다음 flush 에서 다시 시도한다. (커밋된 뒤의 실패는 되돌리지 않음)</li>
+ *     <li>데이터 오류(나이 범위 초과 등)로 batch 가 실패하면 회원별로 다시 반영해서 실패하는 회원의 증가분만 버린다.
+ *     다시 시도해도 계속 실패하므로 버퍼에 남겨 두면 다른 회원까지 영원히 반영되지 않는다.</li>
+ *     <li>종료 시 새 증가를 막고 남은 증가분을 모두 반영한다.</li>
+ * </ul>
+ * JDBC 로 반영하므로 커밋 후 BULK_UPDATE(age) 이벤트를 발행한다.
+ * 영속성 컨텍스트에 이미 올라와 있는 Member 엔티티의 age 는 바뀌지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberAgeIncrementBuffer {
+
+    private static final String UPDATE_AGE = "update member set age = age + ? where member_id = ?";
+    private static final String SELECT_AGE = "select age from member where member_id = ?";
+
+    private final DataSource dataSource;
+    private final ChangeFeed changeFeed;
+    private final DataVersionCounter dataVersionCounter;
+    private final AgeIncrementProperties properties;
+
+    private final Stripe[] stripes;
+    private final AtomicInteger pendingMembers = new AtomicInteger();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("member-age-flush-"));
+    private volatile boolean closed;
+
+    public MemberAgeIncrementBuffer(DataSource dataSource, ChangeFeed changeFeed, DataVersionCounter dataVersionCounter,
+                                    AgeIncrementProperties properties) {
+        this.dataSource = dataSource;
+        this.changeFeed = changeFeed;
+        this.dataVersionCounter = dataVersionCounter;
+        this.properties = properties;
+        int count = Integer.highestOneBit(Math.max(1, properties.getStripes()) * 2 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void increment(long memberId, long delta) {
+        if (delta < Integer.MIN_VALUE || delta > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("age delta out of int range: " + delta);
+        }
+        if (delta == 0) {
+            return;
+        }
+        add(memberId, delta, false);
+        if (pendingMembers.get() >= properties.getFlushThreshold() && flushQueued.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushQueued.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                flushQueued.set(false); //종료 중. close() 에서 반영한다.
+            }
+        }
+    }
+
+    //아직 DB 에 반영되지 않은 증가분 (반영 중인 것은 제외)
+    public long pendingDelta(long memberId) {
+        LongAdder delta = stripeOf(memberId).deltas.get(memberId);
+        return delta != null ? delta.sum() : 0;
+    }
+
+    public int getPendingMembers() {
+        return pendingMembers.get();
+    }
+
+    //대기 중인 증가분을 반영한 현재 나이 (회원이 없으면 null)
+    public Integer getAge(long memberId) {
+        flush(List.of(memberId));
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(SELECT_AGE)) {
+            select.setLong(1, memberId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to read member age: " + memberId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.age-increment.flush-interval:1s}")
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            //증가분은 버퍼에 남아 있으므로 다음 주기에 다시 시도
+            log.warn("member age flush failed, {} members pending", pendingMembers.get(), e);
+        }
+    }
+
+    //모든 stripe 반영. 반영한 회원 수
+    public int flush() {
+        Set<Integer> all = new TreeSet<>();
+        for (int i = 0; i < stripes.length; i++) {
+            all.add(i);
+        }
+        return flushStripes(all);
+    }
+
+    //해당 회원들이 속한 stripe 만 반영
+    public int flush(Collection<Long> memberIds) {
+        Set<Integer> indexes = new TreeSet<>();
+        for (Long memberId : memberIds) {
+            indexes.add(indexOf(memberId));
+        }
+        return flushStripes(indexes);
+    }
+
+    //flushLock 은 항상 stripe 번호 순서로 잡는다. (flush 끼리 교착 방지)
+    private int flushStripes(Set<Integer> indexes) {
+        List<Stripe> locked = indexes.stream().map(i -> stripes[i]).toList();
+        locked.forEach(stripe -> stripe.flushLock.lock());
+        try {
+            //id 순서로 update 해서 다른 트랜잭션과 행 lock 순서를 맞춘다.
+            Map<Long, Long> deltas = new TreeMap<>();
+            for (Stripe stripe : locked) {
+                stripe.drainTo(deltas);
+            }
+            deltas.values().removeIf(delta -> delta == 0);
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+
+            Set<Long> written = deltas.keySet();
+            try {
+                write(deltas);
+            } catch (SQLException | RuntimeException e) {
+                if (!isDataError(e)) {
+                    deltas.forEach((memberId, delta) -> add(memberId, delta, true));
+                    throw new IllegalStateException("failed to flush age increments of " + deltas.size() + " members", e);
+                }
+                written = writeEach(deltas);
+            }
+            if (!written.isEmpty()) {
+                changeFeed.publish(List.of(ChangeEvent.bulk(Member.class, ChangeOperation.BULK_UPDATE, Set.of("age"),
+                        member.id.in(written))));
+            }
+            return written.size();
+        } finally {
+            locked.forEach(stripe -> stripe.flushLock.unlock());
+        }
+    }
+
+    //어느 회원 때문에 실패했는지 모르므로 한 명씩 (각자 트랜잭션) 반영한다. 반영된 회원 id
+    //데이터 오류인 회원의 증가분은 버리고, 그 외 오류면 아직 반영하지 못한 증가분을 되돌린다.
+    private Set<Long> writeEach(Map<Long, Long> deltas) {
+        Set<Long> written = new TreeSet<>();
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            try {
+                write(Map.of(entry.getKey(), entry.getValue()));
+                written.add(entry.getKey());
+            } catch (SQLException | RuntimeException e) {
+                if (isDataError(e)) {
+                    log.error("dropped age increment {} of member {}", entry.getValue(), entry.getKey(), e);
+                    continue;
+                }
+                deltas.forEach((memberId, delta) -> { //id 순서 (TreeMap) 이므로 이 회원부터 아직 반영 안 됨
+                    if (memberId >= entry.getKey()) {
+                        add(memberId, delta, true);
+                    }
+                });
+                if (!written.isEmpty()) {
+                    changeFeed.publish(List.of(ChangeEvent.bulk(Member.class, ChangeOperation.BULK_UPDATE, Set.of("age"),
+                            member.id.in(written))));
+                }
+                throw new IllegalStateException("failed to flush age increment of member " + entry.getKey(), e);
+            }
+        }
+        return written;
+    }
+
+    //SQLState 22xxx (data exception): 같은 값으로 다시 시도해도 실패한다.
+    private static boolean isDataError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    if (next.getSQLState() != null && next.getSQLState().startsWith("22")) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    //커밋된 뒤 close 에서 실패한 것은 예외로 보지 않는다. (호출한 쪽이 증가분을 되돌리면 두 번 반영됨)
+    private void write(Map<Long, Long> deltas) throws SQLException {
+        boolean committed = false;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_AGE)) {
+                int pending = 0;
+                for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                    update.setLong(1, entry.getValue());
+                    update.setLong(2, entry.getKey());
+                    update.addBatch();
+                    if (++pending == properties.getBatchSize()) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    update.executeBatch();
+                }
+                dataVersionCounter.increment(connection, DataVersionCounter.Changes.members(deltas.size()));
+                connection.commit();
+                committed = true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            if (!committed) {
+                throw e;
+            }
+            log.warn("failed to close connection after committing age increments of {} members", deltas.size(), e);
+        }
+    }
+
+    //closed 확인을 read lock 안에서 해야 close() 의 마지막 drain 이후에 들어오는 증가분이 없다.
+    private void add(long memberId, long delta, boolean retry) {
+        Stripe stripe = stripeOf(memberId);
+        stripe.lock.readLock().lock();
+        try {
+            if (closed && !retry) {
+                throw new IllegalStateException("member age increment buffer is closed");
+            }
+            stripe.deltas.computeIfAbsent(memberId, id -> {
+                pendingMembers.incrementAndGet();
+                return new LongAdder();
+            }).add(delta);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    private Stripe stripeOf(long memberId) {
+        return stripes[indexOf(memberId)];
+    }
+
+    private int indexOf(long memberId) {
+        int hash = Long.hashCode(memberId);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        int flushed = flush();
+        log.info("member age increment buffer closed, flushed {} members", flushed);
+    }
+
+    private class Stripe {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private volatile ConcurrentHashMap<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+
+        //write lock 은 map 을 바꾸는 동안만 잡는다. 이후 예전 map 에는 더 이상 쓰지 않는다.
+        void drainTo(Map<Long, Long> target) {
+            ConcurrentHashMap<Long, LongAdder> drained;
+            lock.writeLock().lock();
+            try {
+                drained = deltas;
+                deltas = new ConcurrentHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            pendingMembers.addAndGet(-drained.size());
+            drained.forEach((memberId, delta) -> target.merge(memberId, delta.sum(), Long::sum));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package study.querydsl.cache;
+
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.search.page-cache.enabled=true",
+        "member.search.page-cache.file=build/test-member-page-cache.bin",
+        "member.search.page-cache.size=1MB"
+})
+class MemberPageCacheTest {
+
+    @Autowired
+    MemberPageCache pageCache;
+
+    @Autowired
+    DataVersionCounter dataVersionCounter;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void roundTrip() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 2);
+        List<MemberTeamDto> content = List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "회원2", 20, null, null));
+        pageCache.put("roundTrip", pageCache.currentVersion(), new PageImpl<>(content, pageable, 5));
+
+        Page<MemberTeamDto> cached = pageCache.get("roundTrip", pageable).orElseThrow();
+
+        assertThat(cached.getContent()).isEqualTo(content);
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void committedChangeMakesEntryStale() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 10);
+        pageCache.put("stale", pageCache.currentVersion(),
+                new PageImpl<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")), pageable, 1));
+        assertThat(pageCache.get("stale", pageable)).isPresent();
+
+        Member saved = transactionTemplate.execute(status -> {
+            Member member = new Member("pageCache1", 10);
+            em.persist(member);
+            return member;
+        });
+        try {
+            //커밋 직후 바로 (비동기 구독을 기다리지 않고) stale
+            assertThat(pageCache.get("stale", pageable)).isEmpty();
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, saved.getId())));
+        }
+    }
+
+    @Test
+    public void rolledBackChangeKeepsEntry() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 10);
+        pageCache.put("rollback", pageCache.currentVersion(),
+                new PageImpl<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")), pageable, 1));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("pageCache2", 20));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(pageCache.get("rollback", pageable)).isPresent();
+    }
+
+    //다른 인스턴스나 JDBC 로 쓴 경우도 data_version 만 올라가면 stale
+    @Test
+    public void versionBumpedElsewhereMakesEntryStale() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 10);
+        pageCache.put("elsewhere", pageCache.currentVersion(),
+                new PageImpl<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")), pageable, 1));
+
+        dataVersionCounter.increment(DataVersionCounter.Changes.members(1));
+
+        assertThat(pageCache.get("elsewhere", pageable)).isEmpty();
+    }
+
+    //재시작: 버전이 그대로면 남은 entry 를 쓰고, 내려가 있는 동안 버전이 바뀌었으면 버린다.
+    @Test
+    public void warmStartChecksDataVersion(@TempDir Path directory) throws Exception {
+        PageCacheProperties properties = new PageCacheProperties();
+        properties.setEnabled(true);
+        properties.setFile(directory.resolve("cache.bin"));
+        properties.setSize(DataSize.ofKilobytes(64));
+        PageRequest pageable = PageRequest.of(0, 10);
+
+        MemberPageCache first = new MemberPageCache(properties, dataVersionCounter, new SimpleMeterRegistry());
+        first.open();
+        first.put("warm", first.currentVersion(),
+                new PageImpl<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")), pageable, 1));
+        first.close();
+
+        MemberPageCache restarted = new MemberPageCache(properties, dataVersionCounter, new SimpleMeterRegistry());
+        restarted.open();
+        assertThat(restarted.get("warm", pageable)).isPresent();
+        restarted.close();
+
+        dataVersionCounter.increment(DataVersionCounter.Changes.members(1)); //내려가 있는 동안 다른 인스턴스가 변경
+
+        MemberPageCache stale = new MemberPageCache(properties, dataVersionCounter, new SimpleMeterRegistry());
+        stale.open();
+        assertThat(stale.get("warm", pageable)).isEmpty();
+        stale.close();
+    }
+}
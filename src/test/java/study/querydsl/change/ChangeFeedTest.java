@@ -0,0 +1,84 @@
+package study.querydsl.change;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedTest {
+
+    @Test
+    public void subscribersReceiveEventsInVersionOrder() throws Exception {
+        ChangeFeed feed = new ChangeFeed(new ChangeFeedProperties());
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        try (ChangeSubscription subscription = feed.subscribe("test", event -> {
+            received.add(event);
+            done.countDown();
+        })) {
+            feed.publish(List.of(
+                    ChangeEvent.of(Member.class, 1L, ChangeOperation.INSERT, Set.of("username", "age")),
+                    ChangeEvent.of(Member.class, 1L, ChangeOperation.UPDATE, Set.of("age"))));
+            feed.publish(List.of(ChangeEvent.bulk(Member.class, ChangeOperation.BULK_DELETE, Set.of(), null)));
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(received).extracting(ChangeEvent::version).containsExactly(1L, 2L, 3L);
+        assertThat(received.get(1).affects(Member.class, "age")).isTrue();
+        assertThat(received.get(1).affects(Member.class, "username")).isFalse();
+        assertThat(received.get(2).isBulk()).isTrue();
+        assertThat(received.get(2).affects(Member.class, "username")).isTrue();
+    }
+
+    @Test
+    public void overflowIsReplacedByReset() throws Exception {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setPublishTimeout(Duration.ZERO);
+        ChangeFeed feed = new ChangeFeed(properties);
+
+        CountDownLatch release = new CountDownLatch(1);
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+
+        try (ChangeSubscription subscription = feed.subscribe("slow", 2, event -> {
+            await(release); //느린 구독자
+            received.add(event);
+        })) {
+            for (long id = 1; id <= 10; id++) {
+                feed.publish(List.of(ChangeEvent.of(Member.class, id, ChangeOperation.UPDATE, Set.of("age"))));
+            }
+            release.countDown();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (lastVersion(received) != 10L && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(subscription.getResets()).isPositive();
+        }
+
+        //버퍼를 넘긴 이벤트는 유실되고 대신 RESET 을 받는다. 마지막에는 최신 version 까지 따라잡는다.
+        assertThat(received).anyMatch(ChangeEvent::isReset);
+        assertThat(received.size()).isLessThan(10);
+        assertThat(lastVersion(received)).isEqualTo(10L);
+    }
+
+    private static long lastVersion(List<ChangeEvent> received) {
+        return received.isEmpty() ? 0 : received.get(received.size() - 1).version();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
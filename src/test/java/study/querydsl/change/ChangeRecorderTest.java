@@ -0,0 +1,134 @@
+package study.querydsl.change;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberStatistics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+//커밋 이후 발행을 확인해야 하므로 @Transactional 없이 TransactionTemplate 으로 커밋한다.
+@SpringBootTest
+class ChangeRecorderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    DataVersionCounter dataVersionCounter;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberStatistics memberStatistics;
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status ->
+                queryFactory.delete(member).where(member.username.startsWith("feed")).execute());
+    }
+
+    @Test
+    public void publishesAfterCommit() throws Exception {
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        try (ChangeSubscription subscription = changeFeed.subscribe("test", received::add)) {
+            Long id = transactionTemplate.execute(status -> {
+                Member saved = new Member("feed1", 10);
+                em.persist(saved);
+                em.flush();
+                saved.setAge(11);
+                return saved.getId();
+            });
+            transactionTemplate.executeWithoutResult(status -> queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.username.startsWith("feed"))
+                    .execute());
+
+            awaitSize(received, 3);
+
+            assertThat(received).extracting(ChangeEvent::operation)
+                    .containsExactly(ChangeOperation.INSERT, ChangeOperation.UPDATE, ChangeOperation.BULK_UPDATE);
+            assertThat(received.get(0).id()).isEqualTo(id);
+            assertThat(received.get(1).fields()).containsExactly("age");
+            assertThat(received.get(2).fields()).containsExactly("age");
+            assertThat(received.get(2).predicate()).isEqualTo(member.username.startsWith("feed"));
+        }
+    }
+
+    //직접 new JPAQueryFactory(em) 로 만든 factory 는 bulk 변경을 기록하지 않는다.
+    @Test
+    public void repositoriesUseTrackingFactory() throws Exception {
+        assertThat(queryFactory).isInstanceOf(ChangeTrackingJPAQueryFactory.class);
+        for (Object repository : List.of(memberJpaRepository, memberQueryRepository, memberStatistics)) {
+            assertThat(ReflectionTestUtils.getField(repository, "queryFactory")).isSameAs(queryFactory);
+        }
+    }
+
+    //데이터 버전은 트랜잭션마다 한 번, 커밋 직전에 (커밋 시 flush 된 변경만 있어도) 올라간다.
+    @Test
+    public void dataVersionBumpedOncePerTransactionBeforeCommit() throws Exception {
+        long before = dataVersionCounter.current().version();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("feed3", 30));
+            em.persist(new Member("feed4", 40));
+            em.flush();
+            //변경 도중에는 올리지 않는다. (data_version 행 lock 을 커밋까지 잡지 않도록)
+            assertThat(dataVersionCounter.current().version()).isEqualTo(before);
+        });
+        assertThat(dataVersionCounter.current().version()).isEqualTo(before + 1);
+
+        //커밋 시 flush 로만 생긴 변경
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Member("feed5", 50)));
+        assertThat(dataVersionCounter.current().version()).isEqualTo(before + 2);
+    }
+
+    @Test
+    public void rollbackIsNotPublished() throws Exception {
+        long before = changeFeed.getVersion();
+        DataVersionCounter.Stamp dataVersion = dataVersionCounter.current();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("feed2", 20));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(changeFeed.getVersion()).isEqualTo(before);
+        assertThat(dataVersionCounter.current()).isEqualTo(dataVersion);
+    }
+
+    private static void awaitSize(List<ChangeEvent> received, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.deadline;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class DeadlineAwareJPAQueryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void remainingTimeIsQueryTimeout() throws Exception {
+        DeadlineAwareJPAQueryFactory queryFactory = new DeadlineAwareJPAQueryFactory(em);
+
+        try (RequestDeadline.Scope ignored = RequestDeadline.start(Duration.ofMillis(2_500), DeadlinePolicy.FAIL)) {
+            org.hibernate.query.Query<?> query = queryFactory.selectFrom(member).createQuery()
+                    .unwrap(org.hibernate.query.Query.class);
+
+            //초 단위 올림
+            assertThat(query.getTimeout()).isBetween(1, 3);
+        }
+
+        //요청 밖에서는 제한 없음
+        org.hibernate.query.Query<?> query = queryFactory.selectFrom(member).createQuery()
+                .unwrap(org.hibernate.query.Query.class);
+        assertThat(query.getTimeout()).isNull();
+    }
+
+    @Test
+    public void expiredDeadlineSkipsQuery() throws Exception {
+        em.persist(new Member("member1", 10));
+        DeadlineAwareJPAQueryFactory queryFactory = new DeadlineAwareJPAQueryFactory(em);
+
+        try (RequestDeadline.Scope ignored = RequestDeadline.start(Duration.ZERO, DeadlinePolicy.FAIL)) {
+            assertThatThrownBy(() -> queryFactory.selectFrom(member).fetch())
+                    .isInstanceOf(DeadlineExceededException.class);
+            assertThatThrownBy(() -> queryFactory.selectFrom(member).fetchCount())
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+
+        List<Member> result = queryFactory.selectFrom(member).where(member.username.eq("member1")).fetch();
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    public void deadlineIsPropagatedToWorkerThreads() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (RequestDeadline.Scope ignored = RequestDeadline.start(Duration.ofSeconds(10), DeadlinePolicy.PARTIAL)) {
+            Callable<Boolean> task = () -> RequestDeadline.current().map(RequestDeadline::allowsPartialResults).orElse(false);
+
+            assertThat(executor.submit(RequestDeadline.propagate(task)).get()).isTrue();
+            assertThat(executor.submit(task).get()).isFalse();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(RequestDeadline.current()).isEmpty();
+    }
+}
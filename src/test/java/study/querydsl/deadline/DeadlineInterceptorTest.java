@@ -0,0 +1,40 @@
+package study.querydsl.deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineInterceptorTest {
+
+    private final DeadlineProperties properties = new DeadlineProperties();
+    private final DeadlineInterceptor interceptor = new DeadlineInterceptor(properties, new SimpleMeterRegistry());
+
+    @Test
+    public void headerIsClampedToMinAndMax() throws Exception {
+        properties.setMinTimeout(Duration.ofMillis(100));
+        properties.setMaxTimeout(Duration.ofSeconds(2));
+
+        //0 이나 음수여도 바로 504 가 되지 않는다.
+        assertThat(remainingMillisFor("0")).isBetween(50L, 100L);
+        assertThat(remainingMillisFor("-5")).isBetween(50L, 100L);
+        assertThat(remainingMillisFor("60000")).isBetween(1_900L, 2_000L);
+        assertThat(remainingMillisFor("500")).isBetween(400L, 500L);
+    }
+
+    private long remainingMillisFor(String header) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v3/members");
+        request.addHeader(properties.getHeader(), header);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        try {
+            return RequestDeadline.current().orElseThrow().remainingMillis();
+        } finally {
+            interceptor.afterCompletion(request, response, null, null);
+        }
+    }
+}
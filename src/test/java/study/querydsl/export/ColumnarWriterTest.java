@@ -0,0 +1,77 @@
+package study.querydsl.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnarWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void roundTrip() throws Exception {
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, "kim, \"jr\"\r\n", 0, null, null),
+                new MemberTeamDto(50L, "회원", Integer.MAX_VALUE, 0L, ""),
+                new MemberTeamDto(7L, null, 30, 100L, "teamA"), //id 가 줄어들어도 (음수 delta)
+                new MemberTeamDto(Long.MAX_VALUE, "last", 40, Long.MAX_VALUE - 1, "teamB"));
+
+        //block 3개 (2 + 2 + 1)
+        Path file = write(rows, 2);
+
+        assertThat(read(file)).isEqualTo(rows);
+    }
+
+    @Test
+    public void emptyFile() throws Exception {
+        Path file = write(List.of(), 2);
+
+        assertThat(read(file)).isEmpty();
+    }
+
+    @Test
+    public void truncatedFile() throws Exception {
+        Path file = write(List.of(new MemberTeamDto(1L, "member1", 10, null, null)), 2);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThatThrownBy(() -> read(file)).isInstanceOf(EOFException.class);
+    }
+
+    private Path write(List<MemberTeamDto> rows, int blockRows) throws IOException {
+        Path file = directory.resolve("members.col");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try (ColumnarWriter writer = new ColumnarWriter(channel, blockRows)) {
+            for (MemberTeamDto row : rows) {
+                writer.write(row);
+            }
+        }
+        return file;
+    }
+
+    private static List<MemberTeamDto> read(Path file) throws IOException {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        try (ColumnarReader reader = new ColumnarReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            MemberTeamDto row;
+            while ((row = reader.read()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
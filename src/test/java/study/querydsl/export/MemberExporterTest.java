@@ -0,0 +1,116 @@
+package study.querydsl.export;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+//export 는 별도 EntityManager 로 읽으므로 데이터를 커밋해 둔다.
+@SpringBootTest(properties = {"member.export.partitions=3", "member.export.threads=2", "member.export.block-rows=4"})
+class MemberExporterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberExporter memberExporter;
+
+    @TempDir
+    Path directory;
+
+    //이 테스트가 넣은 행만 지운다.
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'export%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'exportTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void exportAndRestart() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("exportTeam");
+            em.persist(team);
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member("export" + i, i, i % 2 == 0 ? team : null));
+            }
+            em.persist(new Member("export kim, \"jr\"", 30));
+            em.persist(new Member("export\rcr", 31));
+        });
+        //다른 테스트가 커밋한 행이 있어도 되도록 전체 행 수 기준
+        long total = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+
+        ExportResult result = memberExporter.export(directory);
+
+        assertThat(result.getPartitions()).isEqualTo(3);
+        assertThat(result.getRows()).isEqualTo(total);
+        assertThat(csv())
+                .contains("\"export kim, \"\"jr\"\"\"")
+                .contains("\"export\rcr\"");
+
+        //columnar 파일도 같은 행들 (id 순서)
+        List<MemberTeamDto> columnarRows = columnarRows();
+        assertThat(columnarRows).hasSize((int) total);
+        assertThat(columnarRows).extracting("memberId").isSorted();
+        assertThat(columnarRows).filteredOn(row -> row.getUsername() != null && row.getUsername().startsWith("export"))
+                .extracting("username", "teamName")
+                .contains(tuple("export2", "exportTeam"), tuple("export3", null), tuple("export\rcr", null));
+
+        //다시 실행하면 끝난 partition 은 건너뛴다.
+        ExportResult restarted = memberExporter.export(directory);
+        assertThat(restarted.getSkippedPartitions()).isEqualTo(3);
+        assertThat(restarted.getRows()).isZero();
+    }
+
+    private String csv() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (Path csv : partFiles(".csv.gz")) {
+            try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(csv))) {
+                content.append(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return content.toString();
+    }
+
+    private List<MemberTeamDto> columnarRows() throws Exception {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (Path file : partFiles(".col")) {
+            try (ColumnarReader reader = new ColumnarReader(FileChannel.open(file, StandardOpenOption.READ))) {
+                MemberTeamDto row;
+                while ((row = reader.read()) != null) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    //partition 순서대로
+    private List<Path> partFiles(String suffix) throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
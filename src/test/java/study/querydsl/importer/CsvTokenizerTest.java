@@ -0,0 +1,72 @@
+package study.querydsl.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvTokenizerTest {
+
+    @Test
+    public void quotedAndPlainFields() throws Exception {
+        CsvTokenizer tokenizer = tokenizer("kim,20,teamA\r\n\"lee, \"\"jr\"\"\",-3,\n");
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.fieldCount()).isEqualTo(3);
+        assertThat(tokenizer.string(0)).isEqualTo("kim");
+        assertThat(tokenizer.parseInt(1)).isEqualTo(20);
+        assertThat(tokenizer.string(2)).isEqualTo("teamA"); //\r 제외
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.string(0)).isEqualTo("lee, \"jr\"");
+        assertThat(tokenizer.parseInt(1)).isEqualTo(-3);
+        assertThat(tokenizer.isEmpty(2)).isTrue();
+
+        assertThat(tokenizer.nextLine()).isFalse();
+    }
+
+    //export 에서 따옴표로 감싼 줄바꿈이 그대로 다시 읽혀야 한다.
+    @Test
+    public void quotedFieldSpanningLines() throws Exception {
+        CsvTokenizer tokenizer = tokenizer("\"kim\r\njr\",20\r\nlee,30\n\"open\nend");
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.isMalformed()).isFalse();
+        assertThat(tokenizer.string(0)).isEqualTo("kim\r\njr");
+        assertThat(tokenizer.parseInt(1)).isEqualTo(20);
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.lineOffset()).isEqualTo(14);
+        assertThat(tokenizer.string(0)).isEqualTo("lee");
+
+        //닫는 따옴표가 없으면 끝까지 한 필드
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.isMalformed()).isTrue();
+        assertThat(tokenizer.nextLine()).isFalse();
+    }
+
+    @Test
+    public void malformedAndInvalidNumbers() throws Exception {
+        CsvTokenizer tokenizer = tokenizer("\"bad\"x,1\nx,abc\n\nlast,99999999999");
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.isMalformed()).isTrue();
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThatThrownBy(() -> tokenizer.parseInt(1)).isInstanceOf(NumberFormatException.class);
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.isBlank()).isTrue();
+
+        assertThat(tokenizer.nextLine()).isTrue();
+        assertThat(tokenizer.string(0)).isEqualTo("last");
+        assertThatThrownBy(() -> tokenizer.parseInt(1)).isInstanceOf(NumberFormatException.class);
+    }
+
+    private static CsvTokenizer tokenizer(String csv) {
+        return new CsvTokenizer(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.importer;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+//JDBC 로 각자 commit 하므로 @Transactional 롤백을 쓸 수 없다. 끝나고 지운다.
+@SpringBootTest(properties = {"member.import.workers=3", "member.import.batch-size=2"})
+class MemberImporterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberImporter memberImporter;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @TempDir
+    Path directory;
+
+    //이 테스트가 넣은 행만 지운다. (팀은 이 테스트의 이름이면서 회원이 없는 것만)
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username in :usernames or m.username like 'partial%'")
+                    .setParameter("usernames", List.of("member1", "member2", "member3", "member4", "kim, jr", "multi\nline", "afterImport"))
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.name in :names"
+                            + " and not exists (select m from Member m where m.team = t)")
+                    .setParameter("names", List.of("teamA", "teamB"))
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    public void importCsv() throws Exception {
+        Path csv = directory.resolve("members.csv");
+        Files.writeString(csv, """
+                age, username ,team_name
+                10,member1,teamA
+                20,member2,teamB
+                30,member3,teamA
+                abc,badAge,teamA
+                40,,teamA
+                50,member4,
+                60,"kim, jr",teamB
+                70,"multi
+                line",teamA
+                """);
+
+        ImportResult result = memberImporter.importFile(csv, directory.resolve("rejected.txt"));
+
+        assertThat(result.getRows()).isEqualTo(6);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getTeamsCreated()).isEqualTo(2);
+        assertThat(Files.readAllLines(directory.resolve("rejected.txt")))
+                .hasSize(2)
+                .anyMatch(line -> line.contains("invalid age"))
+                .anyMatch(line -> line.contains("empty username"));
+
+        List<Member> members = em.createQuery("select m from Member m left join fetch m.team order by m.age", Member.class)
+                .getResultList();
+        assertThat(members).extracting("username").containsExactly("member1", "member2", "member3", "member4", "kim, jr",
+                "multi\nline"); //따옴표 안의 줄바꿈에서 worker 구간이 나뉘지 않는다.
+        assertThat(members.get(0).getTeam()).isSameAs(members.get(2).getTeam());
+        assertThat(members.get(3).getTeam()).isNull();
+
+        //JDBC 로 넣은 id 와 hibernate 가 만드는 id 가 겹치지 않아야 한다.
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Member("afterImport", 70)));
+    }
+
+    @Test
+    public void failedImportReportsCommittedRows() throws Exception {
+        StringBuilder content = new StringBuilder("username,age\n");
+        for (int i = 10; i < 22; i++) {
+            content.append("partial").append(i).append(',').append(i).append('\n');
+        }
+        content.append("partial99,abc\n"); //거부된 행 -> 없는 디렉토리라 에러 파일을 못 써서 worker 실패
+        Path csv = directory.resolve("members.csv");
+        Files.writeString(csv, content);
+        long feedVersion = changeFeed.getVersion();
+
+        MemberImportException e = catchThrowableOfType(MemberImportException.class,
+                () -> memberImporter.importFile(csv, directory.resolve("missing").resolve("rejected.txt")));
+
+        Long imported = em.createQuery("select count(m) from Member m where m.username like 'partial%'", Long.class)
+                .getSingleResult();
+        assertThat(e.getCommittedRows()).isPositive().isEqualTo(imported);
+        //커밋된 batch 가 있으므로 실패해도 BULK_INSERT 발행
+        assertThat(changeFeed.getVersion()).isGreaterThan(feedVersion);
+
+        //커밋되지 않은 구간에 실패한 줄이 들어 있다.
+        byte[] bytes = Files.readAllBytes(csv);
+        assertThat(e.getUncommittedRanges()).isNotEmpty();
+        MemberImportException.Range last = e.getUncommittedRanges().get(e.getUncommittedRanges().size() - 1);
+        assertThat(last.to()).isEqualTo(bytes.length);
+        assertThat(new String(bytes, (int) last.from(), (int) (last.to() - last.from()), StandardCharsets.UTF_8))
+                .contains("partial99,abc");
+    }
+}
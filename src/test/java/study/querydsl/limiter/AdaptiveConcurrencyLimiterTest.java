@@ -0,0 +1,70 @@
+package study.querydsl.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private ConcurrencyLimiterProperties.Limit config(int initialLimit, int maxQueueSize) {
+        ConcurrencyLimiterProperties.Limit config = new ConcurrencyLimiterProperties.Limit();
+        config.setInitialLimit(initialLimit);
+        config.setMinLimit(1);
+        config.setMaxQueueSize(maxQueueSize);
+        config.setMaxWait(Duration.ofMillis(10));
+        return config;
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("/v1/members", config(2, 0));
+
+        limiter.acquire();
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.getInflight()).isEqualTo(2);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void waitInQueueUntilReleased() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("/v3/members", config(1, 1));
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+
+        //대기열에서 maxWait 동안 자리가 안 나면 거절
+        assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+
+        first.release(false);
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+        assertThat(limiter.getInflight()).isEqualTo(1);
+        second.release(false);
+        assertThat(limiter.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void decreaseLimitOnFailure() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("/v3/members", config(20, 0));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire().release(true);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(20);
+    }
+
+    @Test
+    public void releaseOnlyOnce() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("/v2/members", config(5, 0));
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        permit.release(false);
+        permit.release(false);
+
+        assertThat(limiter.getInflight()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.load;
+
+//벤치마크 공통: warmup 후 iterations 번 실행하면서 실행 시간을 기록한다.
+public class Benchmarks {
+
+    public static final int WARMUP = Integer.parseInt(System.getProperty("bench.warmup", "20"));
+    public static final int ITERATIONS = Integer.parseInt(System.getProperty("bench.iterations", "100"));
+
+    public static LatencyRecorder measure(Runnable task) {
+        return measure(WARMUP, ITERATIONS, task);
+    }
+
+    public static LatencyRecorder measure(int warmup, int iterations, Runnable task) {
+        for (int i = 0; i < warmup; i++) {
+            task.run();
+        }
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            task.run();
+            recorder.record(System.nanoTime() - start);
+        }
+        return recorder;
+    }
+
+    //한 줄 요약: name, 실행 횟수, 초당 실행 수, p50 ~ max
+    public static void print(String name, LatencyRecorder recorder) {
+        System.out.println(recorder.summary(name, totalSeconds(recorder)));
+    }
+
+    private static double totalSeconds(LatencyRecorder recorder) {
+        return recorder.totalNanos() / 1e9;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.load;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.CountMode;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.PageFetchStrategy;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * searchPageComplex 의 DIRECT vs DEFERRED_JOIN 비교 (페이지 깊이 1, 100, 10,000)
+ * 실행: ./gradlew benchmark -Pbench=DeferredJoinBenchmark -Pload.members=200000
+ */
+public class DeferredJoinBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int[] PAGE_DEPTHS = {1, 100, 10_000};
+
+    public static void main(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        //가장 깊은 페이지까지 데이터가 있어야 한다.
+        int members = Math.max(config.getMembers(), PAGE_DEPTHS[PAGE_DEPTHS.length - 1] * PAGE_SIZE + PAGE_SIZE);
+
+        ConfigurableApplicationContext context = LoadTestApplication.start(config.getAppArgs());
+        try {
+            new LoadDataSeeder(context).seed(config.getTeams(), members);
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+            MemberSearchCondition unfiltered = new MemberSearchCondition();
+            MemberSearchCondition ageRange = new MemberSearchCondition();
+            ageRange.setAgeGoe(20);
+            ageRange.setAgeLoe(60);
+
+            System.out.println(LatencyRecorder.header());
+            for (int depth : PAGE_DEPTHS) {
+                for (PageFetchStrategy strategy : PageFetchStrategy.values()) {
+                    run(memberRepository, "none", unfiltered, depth, strategy);
+                    run(memberRepository, "age", ageRange, depth, strategy);
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(MemberRepository memberRepository, String conditionName, MemberSearchCondition condition,
+                            int depth, PageFetchStrategy strategy) {
+        PageSearchOptions options = new PageSearchOptions();
+        options.setFetchStrategy(strategy);
+        options.setCountMode(CountMode.APPROXIMATE); //count 비용은 제외하고 content 조회만 비교
+        PageRequest pageRequest = PageRequest.of(depth - 1, PAGE_SIZE);
+
+        LatencyRecorder recorder = Benchmarks.measure(
+                () -> memberRepository.searchPageComplex(condition, pageRequest, options));
+        Benchmarks.print(strategy + " " + conditionName + " page=" + depth, recorder);
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.load;
+
+import java.util.Arrays;
+
+/**
+ * 응답 시간(nanos) 수집기. 스레드마다 하나씩 쓰고 마지막에 merge 한다. (thread-safe 하지 않음)
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+    private long rejected;
+
+    public void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    public void error() {
+        errors++;
+    }
+
+    //503 (concurrency limit) 응답
+    public void rejected() {
+        rejected++;
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.size; i++) {
+            record(other.samples[i]);
+        }
+        errors += other.errors;
+        rejected += other.rejected;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += samples[i];
+        }
+        return total;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    //q: 0.5, 0.95, 0.99, 0.999 ...
+    public double percentileMillis(double q) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(q * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+    }
+
+    public String summary(String name, double seconds) {
+        return String.format("%-28s %9d %10.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, size, size / seconds, errors, rejected,
+                percentileMillis(0.50), percentileMillis(0.95), percentileMillis(0.99),
+                percentileMillis(0.999), percentileMillis(1.0));
+    }
+
+    public static String header() {
+        return String.format("%-28s %9s %10s %7s %7s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "req/s", "errors", "503", "p50(ms)", "p95(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.load;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 부하 테스트용 데이터 적재. team 은 "team0" ~, member 는 "member0" ~ 로 만들고
+ * 나이(1~80)와 팀은 고정 seed 로 랜덤 배정한다. (실행마다 같은 데이터)
+ */
+public class LoadDataSeeder {
+
+    private static final int CHUNK_SIZE = 5_000;
+    private static final int FLUSH_SIZE = 500;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    public LoadDataSeeder(ConfigurableApplicationContext context) {
+        this.em = context.getBean(EntityManager.class);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    public void seed(int teamCount, int memberCount) {
+        long start = System.nanoTime();
+
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int from = 0; from < memberCount; from += CHUNK_SIZE) {
+            int to = Math.min(memberCount, from + CHUNK_SIZE);
+            int chunkFrom = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = chunkFrom; i < to; i++) {
+                    Member member = new Member("member" + i, 1 + random.nextInt(80));
+                    //Member(username, age, team) 는 team.getMembers() 를 건드리므로 프록시만 연결한다.
+                    member.setTeam(em.getReference(Team.class, teamIds.get(random.nextInt(teamIds.size()))));
+                    em.persist(member);
+                    if ((i + 1) % FLUSH_SIZE == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+            });
+        }
+
+        System.out.printf("seeded %d teams, %d members in %.1fs%n",
+                teamCount, memberCount, (System.nanoTime() - start) / 1e9);
+    }
+}
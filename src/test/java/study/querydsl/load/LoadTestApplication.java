@@ -0,0 +1,43 @@
+package study.querydsl.load;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 부하 테스트 / 벤치마크용으로 애플리케이션을 embedded H2(in-memory) + 랜덤 포트로 띄운다.
+ * 로컬 H2 서버(tcp)가 필요 없고 SQL 로그도 끈다.
+ */
+public class LoadTestApplication {
+
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=load",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.highlight_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=500",
+                "--spring.jpa.properties.hibernate.order_inserts=true",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--spring.main.banner-mode=off",
+                "--server.port=0"
+        ));
+        //뒤에 오는 인자가 우선
+        args.addAll(Arrays.asList(extraArgs));
+
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .run(args.toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.load;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정. gradle -P 옵션(load.*)이 시스템 프로퍼티로 넘어온다.
+ * ex) ./gradlew loadTest -Pload.members=1000000 -Pload.concurrency=200 -Pload.clients=virtual
+ */
+@Getter
+public class LoadTestConfig {
+
+    private final int members = intProperty("load.members", 100_000);
+    private final int teams = intProperty("load.teams", 100);
+    private final int concurrency = intProperty("load.concurrency", 64);
+    private final Duration warmup = Duration.ofSeconds(intProperty("load.warmupSeconds", 5));
+    private final Duration duration = Duration.ofSeconds(intProperty("load.durationSeconds", 30));
+    private final int pageSize = intProperty("load.pageSize", 20);
+    private final int maxPage = intProperty("load.maxPage", 100); //페이지 깊이 (0 ~ maxPage 중 랜덤)
+    private final String clients = System.getProperty("load.clients", "platform"); //platform | virtual
+
+    //엔드포인트 비율
+    private final Map<String, Integer> endpointMix = weights("load.endpoints", "v1=1,v2=3,v3=6");
+
+    //검색 조건 비율
+    private final Map<String, Integer> conditionMix =
+            weights("load.conditions", "none=1,team=3,age=3,teamAge=2,username=1");
+
+    //애플리케이션에 그대로 넘길 인자 (ex: -Pload.args=--member.search.limiter.enabled=false)
+    private final String[] appArgs = arrayProperty("load.args");
+
+    public boolean isVirtualClients() {
+        return "virtual".equalsIgnoreCase(clients);
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim().replace("_", ""));
+    }
+
+    private static String[] arrayProperty(String key) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? new String[0] : value.split(",");
+    }
+
+    private static Map<String, Integer> weights(String key, String defaultValue) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String entry : System.getProperty(key, defaultValue).split(",")) {
+            String[] pair = entry.split("=");
+            result.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "members=" + members + ", teams=" + teams + ", concurrency=" + concurrency
+                + ", clients=" + clients + ", duration=" + duration.toSeconds() + "s"
+                + ", pageSize=" + pageSize + ", maxPage=" + maxPage
+                + ", endpoints=" + endpointMix + ", conditions=" + conditionMix;
+    }
+}
@@ -0,0 +1,197 @@
+package study.querydsl.load;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * in-process 부하 테스트.
+ * 1. embedded H2 로 애플리케이션 실행 + 데이터 적재
+ * 2. 설정된 비율로 /v1, /v2, /v3/members 호출 (조건, 페이지 깊이 랜덤)
+ * 3. 엔드포인트 별 처리량, p50/p95/p99/p999 출력
+ *
+ * 실행: ./gradlew loadTest -Pload.members=1000000 -Pload.concurrency=200 -Pload.clients=virtual
+ */
+public class LoadTestRunner {
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+
+    public LoadTestRunner(LoadTestConfig config, int port) {
+        this.config = config;
+        this.baseUrl = "http://localhost:" + port;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        System.out.println("load test: " + config);
+
+        ConfigurableApplicationContext context = LoadTestApplication.start(config.getAppArgs());
+        try {
+            new LoadDataSeeder(context).seed(config.getTeams(), config.getMembers());
+
+            LoadTestRunner runner = new LoadTestRunner(config, LoadTestApplication.port(context));
+            runner.run(config.getWarmup());
+            PinningMonitor pinning = PinningMonitor.start();
+            Map<String, LatencyRecorder> result = runner.run(config.getDuration());
+            print(result, config.getDuration());
+            PinningMonitor.check(pinning.stopAndPrint("load test"));
+        } finally {
+            context.close();
+        }
+    }
+
+    public Map<String, LatencyRecorder> run(Duration duration) throws Exception {
+        return run(duration, config.getConcurrency());
+    }
+
+    //동시 클라이언트 수만 바꿔서 실행 (VirtualThreadBenchmark)
+    public Map<String, LatencyRecorder> run(Duration duration, int clients) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        try (ClientExecutor executor = new ClientExecutor(newExecutor(clients))) {
+            for (int i = 0; i < clients; i++) {
+                long seed = i;
+                futures.add(executor.submit(() -> client(new SplittableRandom(seed), deadline)));
+            }
+
+            Map<String, LatencyRecorder> merged = new TreeMap<>();
+            for (Future<Map<String, LatencyRecorder>> future : futures) {
+                future.get().forEach((endpoint, recorder) ->
+                        merged.computeIfAbsent(endpoint, key -> new LatencyRecorder()).merge(recorder));
+            }
+            return merged;
+        }
+    }
+
+    private Map<String, LatencyRecorder> client(SplittableRandom random, long deadline) {
+        Map<String, LatencyRecorder> recorders = new TreeMap<>();
+        while (System.nanoTime() < deadline) {
+            String endpoint = pick(config.getEndpointMix(), random);
+            LatencyRecorder recorder = recorders.computeIfAbsent(endpoint, key -> new LatencyRecorder());
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + endpoint + "/members?" + query(endpoint, random)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                long elapsed = System.nanoTime() - start;
+                if (response.statusCode() == 503) {
+                    recorder.rejected();
+                } else if (response.statusCode() >= 400) {
+                    recorder.error();
+                } else {
+                    recorder.record(elapsed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                recorder.error();
+            }
+        }
+        return recorders;
+    }
+
+    private String query(String endpoint, SplittableRandom random) {
+        StringBuilder query = new StringBuilder();
+        switch (pick(config.getConditionMix(), random)) {
+            case "team" -> param(query, "teamName", "team" + random.nextInt(config.getTeams()));
+            case "age" -> ageRange(query, random);
+            case "teamAge" -> {
+                param(query, "teamName", "team" + random.nextInt(config.getTeams()));
+                ageRange(query, random);
+            }
+            case "username" -> param(query, "username", "member" + random.nextInt(config.getMembers()));
+            default -> {
+                //조건 없음
+            }
+        }
+        if (!endpoint.equals("v1")) {
+            param(query, "page", String.valueOf(random.nextInt(config.getMaxPage() + 1)));
+            param(query, "size", String.valueOf(config.getPageSize()));
+        }
+        return query.toString();
+    }
+
+    private static void ageRange(StringBuilder query, SplittableRandom random) {
+        int ageGoe = 1 + random.nextInt(70);
+        param(query, "ageGoe", String.valueOf(ageGoe));
+        param(query, "ageLoe", String.valueOf(ageGoe + random.nextInt(20)));
+    }
+
+    private static void param(StringBuilder query, String name, String value) {
+        if (!query.isEmpty()) {
+            query.append('&');
+        }
+        query.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+
+    private static String pick(Map<String, Integer> weights, SplittableRandom random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int r = random.nextInt(total);
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            r -= entry.getValue();
+            if (r < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("empty weights: " + weights);
+    }
+
+    private ExecutorService newExecutor(int clients) {
+        if (config.isVirtualClients()) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newFixedThreadPool(clients);
+    }
+
+    public static void print(Map<String, LatencyRecorder> result, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        LatencyRecorder total = new LatencyRecorder();
+
+        System.out.println(LatencyRecorder.header());
+        result.forEach((endpoint, recorder) -> {
+            System.out.println(recorder.summary("/" + endpoint, seconds));
+            total.merge(recorder);
+        });
+        System.out.println(total.summary("total", seconds));
+    }
+
+    //ExecutorService.close() 는 남은 작업이 끝날 때까지 기다리므로, 실패 시 바로 정리하도록 shutdownNow 로 닫는 래퍼
+    private record ClientExecutor(ExecutorService delegate) implements AutoCloseable {
+
+        <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(task);
+        }
+
+        @Override
+        public void close() {
+            delegate.shutdownNow();
+        }
+    }
+}
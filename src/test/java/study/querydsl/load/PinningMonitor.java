@@ -0,0 +1,72 @@
+package study.querydsl.load;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * virtual thread 가 carrier 에 고정(pinning)된 횟수를 JFR 이벤트(jdk.VirtualThreadPinned)로 센다.
+ * -Djdk.tracePinnedThreads 는 스택을 출력하기만 해서 결과에 섞여 놓치기 쉬우므로, 측정 구간마다 횟수와 많이 나온 스택을 요약한다.
+ * -Pload.failOnPinned=true 면 한 번이라도 pinning 이 있으면 벤치마크를 실패시킨다.
+ */
+class PinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 6;
+    private static final int TOP_STACKS = 3;
+    private static final boolean FAIL_ON_PINNED = Boolean.getBoolean("load.failOnPinned");
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Map<String, LongAdder> byStack = new ConcurrentHashMap<>();
+
+    private PinningMonitor() {
+        stream.enable(EVENT).withThreshold(Duration.ZERO).withStackTrace();
+        stream.onEvent(EVENT, event -> byStack.computeIfAbsent(stack(event), key -> new LongAdder()).increment());
+    }
+
+    static PinningMonitor start() {
+        PinningMonitor monitor = new PinningMonitor();
+        monitor.stream.startAsync();
+        return monitor;
+    }
+
+    //측정을 끝내고 요약을 출력한다. (stop 이 돌아오면 기록된 이벤트는 모두 전달된 상태) pinning 횟수
+    long stopAndPrint(String label) {
+        stream.stop();
+        stream.close();
+        long total = byStack.values().stream().mapToLong(LongAdder::sum).sum();
+        System.out.printf("[%s] virtual thread pinned: %,d%n", label, total);
+        byStack.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(TOP_STACKS)
+                .forEach(entry -> System.out.printf("  %,d x %s%n", entry.getValue().sum(), entry.getKey()));
+        return total;
+    }
+
+    //모든 측정이 끝난 뒤 호출 (결과는 다 출력한 다음 실패)
+    static void check(long pinned) {
+        if (FAIL_ON_PINNED && pinned > 0) {
+            throw new IllegalStateException("virtual threads were pinned " + pinned + " times (load.failOnPinned=true)");
+        }
+    }
+
+    private static String stack(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        return frames.stream()
+                .limit(STACK_DEPTH)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.load;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.BatchSaveResult;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * saveAll (엔티티 하나씩 persist, flush 는 커밋 시 한번) vs saveAllBatched (batchSize 마다 flush + detach) 비교
+ * 실행: ./gradlew benchmark -Pbench=SaveAllBatchedBenchmark -Pbench.rows=50000 -Pbench.batchSize=500
+ */
+public class SaveAllBatchedBenchmark {
+
+    public static void main(String[] args) {
+        int rows = Integer.parseInt(System.getProperty("bench.rows", "50000"));
+        int batchSize = Integer.parseInt(System.getProperty("bench.batchSize", "500"));
+        int rounds = Integer.parseInt(System.getProperty("bench.iterations", "3"));
+
+        //statement 수를 보려면 statistics 를 켠다.
+        List<String> appArgs = new ArrayList<>(Arrays.asList(new LoadTestConfig().getAppArgs()));
+        appArgs.add("--spring.jpa.properties.hibernate.generate_statistics=true");
+
+        ConfigurableApplicationContext context = LoadTestApplication.start(appArgs.toArray(String[]::new));
+        try {
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+            for (int round = 1; round <= rounds; round++) {
+                long start = System.nanoTime();
+                memberRepository.saveAll(newMembers("saveAll" + round + "_", rows));
+                long saveAllNanos = System.nanoTime() - start;
+
+                BatchSaveResult result = memberRepository.saveAllBatched(newMembers("batched" + round + "_", rows), batchSize);
+
+                System.out.printf("round %d  saveAll: %,.0f rows/s  saveAllBatched(batchSize=%d): %,.0f rows/s, %d batches, %d statements%n",
+                        round, rows / (saveAllNanos / 1_000_000_000.0), batchSize,
+                        result.getRowsPerSecond(), result.getBatchCount(), result.getStatementCount());
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<Member> newMembers(String prefix, int rows) {
+        List<Member> members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member(prefix + i, i % 100));
+        }
+        return members;
+    }
+}
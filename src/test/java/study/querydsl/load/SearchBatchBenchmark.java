@@ -0,0 +1,45 @@
+package study.querydsl.load;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * searchBatch (쿼리 1번) vs search N 번 비교. 팀 탭 N 개 + 나이 조건
+ * 실행: ./gradlew benchmark -Pbench=SearchBatchBenchmark -Pbench.tabs=10
+ */
+public class SearchBatchBenchmark {
+
+    public static void main(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        int[] tabCounts = {2, Integer.parseInt(System.getProperty("bench.tabs", "10"))};
+
+        ConfigurableApplicationContext context = LoadTestApplication.start(config.getAppArgs());
+        try {
+            new LoadDataSeeder(context).seed(config.getTeams(), config.getMembers());
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+            System.out.println(LatencyRecorder.header());
+            for (int tabs : tabCounts) {
+                Map<String, MemberSearchCondition> conditions = new LinkedHashMap<>();
+                for (int i = 0; i < tabs; i++) {
+                    MemberSearchCondition condition = new MemberSearchCondition();
+                    condition.setTeamName("team" + (i % config.getTeams()));
+                    condition.setAgeGoe(30);
+                    condition.setAgeLoe(40);
+                    conditions.put("tab" + i, condition);
+                }
+
+                Benchmarks.print("batch tabs=" + tabs,
+                        Benchmarks.measure(() -> memberRepository.searchBatch(conditions)));
+                Benchmarks.print("sequential tabs=" + tabs,
+                        Benchmarks.measure(() -> conditions.values().forEach(memberRepository::search)));
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.load;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberStatelessRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 전체 회원 조회: 트랜잭션 안에서 EntityManager 로 stream (영속성 컨텍스트에 계속 쌓임)
+ * vs MemberStatelessRepository.scanAll (StatelessSession + 커서).
+ * 100만 건당 시간, 조회 중 최대 힙 증가량, 할당량을 출력한다.
+ *
+ * 실행: ./gradlew benchmark -Pbench=StatelessScanBenchmark -Pbench.rows=1000000
+ */
+public class StatelessScanBenchmark {
+
+    private static final int SAMPLE_EVERY = 10_000;
+
+    public static void main(String[] args) {
+        int rows = Integer.parseInt(System.getProperty("bench.rows", "1000000"));
+        int rounds = Integer.parseInt(System.getProperty("bench.iterations", "3"));
+        LoadTestConfig config = new LoadTestConfig();
+
+        ConfigurableApplicationContext context = LoadTestApplication.start(config.getAppArgs());
+        try {
+            new LoadDataSeeder(context).seed(config.getTeams(), rows);
+            JPAQueryFactory queryFactory = context.getBean(JPAQueryFactory.class);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            MemberStatelessRepository statelessRepository = context.getBean(MemberStatelessRepository.class);
+
+            for (int round = 1; round <= rounds; round++) {
+                run("stateful  round " + round, action -> transactionTemplate.execute(status -> {
+                    long count = 0;
+                    try (Stream<Member> stream = queryFactory.selectFrom(member).stream()) {
+                        for (Member scanned : (Iterable<Member>) stream::iterator) {
+                            action.accept(scanned);
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+                run("stateless round " + round, statelessRepository::scanAll);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(String name, ToLongFunction<Consumer<Member>> scan) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.gc();
+
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        long[] peak = {baseline};
+        long[] seen = {0};
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+
+        long count = scan.applyAsLong(scanned -> {
+            if (++seen[0] % SAMPLE_EVERY == 0) {
+                peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed());
+            }
+        });
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        double perMillion = count == 0 ? 0 : elapsed / 1e6 * (1_000_000.0 / count);
+        System.out.printf("%s: %,d rows, %,.0f ms per million rows, peak heap +%,d MB, allocated %,d MB%n",
+                name, count, perMillion, (peak[0] - baseline) >> 20, allocated >> 20);
+    }
+}
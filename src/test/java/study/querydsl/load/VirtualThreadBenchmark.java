@@ -0,0 +1,59 @@
+package study.querydsl.load;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서버 요청 처리 스레드 platform (tomcat 풀 200) vs virtual (spring.threads.virtual.enabled) 비교.
+ * 동시 클라이언트 100 / 1,000 / 10,000 에서 처리량과 지연 시간을 출력한다.
+ * 클라이언트 쪽이 병목이 되지 않도록 클라이언트는 항상 virtual thread 로 실행한다.
+ * limiter 는 스레드 모델 차이를 가리므로 끈다. (-Pload.args 로 다시 켤 수 있음)
+ *
+ * 실행: ./gradlew benchmark -Pbench=VirtualThreadBenchmark -Pbench.clients=100,1000,10000 -Pload.durationSeconds=20
+ * 측정 구간마다 virtual thread pinning 횟수를 출력한다. (PinningMonitor)
+ * pinning 이 있으면 실패: -Pload.failOnPinned=true, 스택 전체 출력: -Pload.tracePinned=true
+ */
+public class VirtualThreadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("load.clients", "virtual");
+        LoadTestConfig config = new LoadTestConfig();
+        int[] clientCounts = Arrays.stream(System.getProperty("bench.clients", "100,1000,10000").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim().replace("_", "")))
+                .toArray();
+
+        long pinned = 0;
+        for (String mode : List.of("platform", "virtual")) {
+            List<String> appArgs = new ArrayList<>(List.of(
+                    "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                    "--member.search.limiter.enabled=false",
+                    //10,000 연결을 받을 수 있도록
+                    "--server.tomcat.max-connections=20000",
+                    "--server.tomcat.accept-count=10000"
+            ));
+            appArgs.addAll(Arrays.asList(config.getAppArgs()));
+
+            ConfigurableApplicationContext context = LoadTestApplication.start(appArgs.toArray(String[]::new));
+            try {
+                new LoadDataSeeder(context).seed(config.getTeams(), config.getMembers());
+                LoadTestRunner runner = new LoadTestRunner(config, LoadTestApplication.port(context));
+
+                for (int clients : clientCounts) {
+                    runner.run(config.getWarmup(), clients);
+                    PinningMonitor pinning = PinningMonitor.start();
+                    Map<String, LatencyRecorder> result = runner.run(config.getDuration(), clients);
+                    System.out.printf("%n[server threads=%s, clients=%,d]%n", mode, clients);
+                    LoadTestRunner.print(result, config.getDuration());
+                    pinned += pinning.stopAndPrint("server threads=" + mode + ", clients=" + clients);
+                }
+            } finally {
+                context.close();
+            }
+        }
+        PinningMonitor.check(pinned);
+    }
+}
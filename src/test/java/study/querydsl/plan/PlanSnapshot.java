@@ -0,0 +1,97 @@
+package study.querydsl.plan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 한 (메서드, 조건 형태) 조합에서 실행된 SQL + EXPLAIN 을 golden 파일 형식으로 쓰고 읽는다.
+ * <pre>
+ * statements: 2
+ * -- [1] access: MEMBER M1_0=IDX_MEMBER_AGE, TEAM T1_0=PRIMARY_KEY_2
+ * select ...
+ * -- plan
+ * SELECT ...
+ * </pre>
+ * 비교에는 statement 수와 access 줄만 사용한다. (SQL/plan 본문은 사람이 diff 로 보기 위한 것)
+ */
+record PlanSnapshot(List<QueryPlan> plans) {
+
+    private static final String STATEMENTS = "statements: ";
+    private static final String ACCESS = " access: ";
+
+    String format() {
+        StringBuilder text = new StringBuilder(STATEMENTS).append(plans.size()).append('\n');
+        for (int i = 0; i < plans.size(); i++) {
+            QueryPlan plan = plans.get(i);
+            text.append("-- [").append(i + 1).append(']').append(ACCESS).append(formatAccess(plan.access())).append('\n')
+                    .append(plan.sql().strip()).append('\n')
+                    .append("-- plan\n")
+                    .append(plan.plan()).append('\n');
+        }
+        return text.toString();
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, format());
+    }
+
+    //golden 파일에서 statement 수와 statement 별 access 만 읽는다.
+    static Golden read(Path file) throws IOException {
+        int statements = -1;
+        List<Map<String, String>> access = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.startsWith(STATEMENTS)) {
+                statements = Integer.parseInt(line.substring(STATEMENTS.length()).strip());
+            } else if (line.startsWith("-- [") && line.contains(ACCESS)) {
+                access.add(parseAccess(line.substring(line.indexOf(ACCESS) + ACCESS.length())));
+            }
+        }
+        return new Golden(statements, access);
+    }
+
+    //golden 대비 나빠진 점 (statement 수 증가, 인덱스 -> 전체 스캔)
+    List<String> regressionsFrom(Golden golden) {
+        List<String> regressions = new ArrayList<>();
+        if (plans.size() > golden.statements()) {
+            regressions.add("statement count grew: " + golden.statements() + " -> " + plans.size());
+        }
+        for (int i = 0; i < Math.min(plans.size(), golden.access().size()); i++) {
+            Map<String, String> before = golden.access().get(i);
+            Map<String, String> after = plans.get(i).access();
+            for (Map.Entry<String, String> entry : after.entrySet()) {
+                String previous = before.get(entry.getKey());
+                if (QueryPlan.TABLE_SCAN.equals(entry.getValue()) && previous != null && !QueryPlan.TABLE_SCAN.equals(previous)) {
+                    regressions.add("statement " + (i + 1) + ": " + entry.getKey() + " used " + previous + ", now " + QueryPlan.TABLE_SCAN);
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static String formatAccess(Map<String, String> access) {
+        List<String> entries = new ArrayList<>();
+        access.forEach((table, index) -> entries.add(table + "=" + index));
+        return String.join(", ", entries);
+    }
+
+    private static Map<String, String> parseAccess(String text) {
+        Map<String, String> access = new LinkedHashMap<>();
+        if (text.isBlank()) {
+            return access;
+        }
+        for (String entry : text.split(", ")) {
+            int separator = entry.lastIndexOf('=');
+            access.put(entry.substring(0, separator), entry.substring(separator + 1));
+        }
+        return access;
+    }
+
+    record Golden(int statements, List<Map<String, String>> access) {
+    }
+}
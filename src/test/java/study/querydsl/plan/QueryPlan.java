@@ -0,0 +1,81 @@
+package study.querydsl.plan;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * H2 EXPLAIN 결과와 테이블별 접근 방식.
+ * H2 는 테이블 뒤에 주석으로 접근 방식을 보여준다.
+ * <pre>
+ * FROM PUBLIC.MEMBER M1_0 /&#42; PUBLIC.IDX_MEMBER_AGE: AGE >= 20 &#42;/   -> 인덱스
+ * FROM PUBLIC.MEMBER M1_0 /&#42; PUBLIC.MEMBER.tableScan &#42;/            -> 전체 스캔
+ * </pre>
+ */
+public record QueryPlan(String sql, String plan, Map<String, String> access) {
+
+    static final String TABLE_SCAN = "tableScan";
+
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/\\s*", Pattern.DOTALL);
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    //"PUBLIC"."MEMBER" "M1_0" /* PUBLIC.IDX_MEMBER_AGE ... (식별자 따옴표, 별칭은 없을 수도 있음)
+    private static final Pattern TABLE_ACCESS = Pattern.compile(
+            "\"?PUBLIC\"?\\.\"?(\\w+)\"?(?:\\s+\"?(\\w+)\"?)?\\s*/\\* PUBLIC\\.([\\w.]+)", Pattern.CASE_INSENSITIVE);
+
+    static QueryPlan explain(Connection connection, String sql) throws SQLException {
+        String statement = stripComment(sql);
+        StringBuilder plan = new StringBuilder();
+        try (Statement explain = connection.createStatement();
+             ResultSet resultSet = explain.executeQuery("EXPLAIN " + statement)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+        }
+        return new QueryPlan(statement, plan.toString().strip(), access(plan.toString()));
+    }
+
+    //EXPLAIN ANALYZE 로 실제 실행해서 읽은 행 수 (H2: /* scanCount: N */ 의 합)
+    static long scanCount(Connection connection, String sql) throws SQLException {
+        String statement = stripComment(sql);
+        long scanned = 0;
+        try (Statement explain = connection.createStatement();
+             ResultSet resultSet = explain.executeQuery("EXPLAIN ANALYZE " + statement)) {
+            while (resultSet.next()) {
+                Matcher matcher = SCAN_COUNT.matcher(resultSet.getString(1));
+                while (matcher.find()) {
+                    scanned += Long.parseLong(matcher.group(1));
+                }
+            }
+        }
+        return scanned;
+    }
+
+    //시퀀스 호출을 제외한 select 인지
+    static boolean isQuery(String sql) {
+        String statement = stripComment(sql).toLowerCase();
+        return statement.startsWith("select") && !statement.contains("next value for") && !statement.contains("nextval");
+    }
+
+    static String stripComment(String sql) {
+        return LEADING_COMMENT.matcher(sql).replaceFirst("");
+    }
+
+    //테이블(별칭) -> 인덱스 이름 또는 tableScan
+    static Map<String, String> access(String plan) {
+        Map<String, String> access = new LinkedHashMap<>();
+        Matcher matcher = TABLE_ACCESS.matcher(plan);
+        while (matcher.find()) {
+            String table = matcher.group(2) == null
+                    ? matcher.group(1).toUpperCase()
+                    : matcher.group(1).toUpperCase() + " " + matcher.group(2).toUpperCase();
+            String index = matcher.group(3);
+            access.put(table, index.endsWith("." + TABLE_SCAN) ? TABLE_SCAN : index);
+        }
+        return access;
+    }
+}
@@ -0,0 +1,157 @@
+package study.querydsl.plan;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.PageFetchStrategy;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemberSearchCondition 의 16 가지 조건 형태 x MemberRepositoryImpl 검색/페이징 메서드 마다
+ * 실행된 SQL 과 EXPLAIN 결과를 golden 파일(src/test/resources/plans)과 비교한다.
+ * 인덱스를 타던 테이블이 전체 스캔으로 바뀌거나 statement 수가 늘어나면 실패한다.
+ *
+ * golden 파일이 없어도 실패한다. 새 케이스이거나 의도한 변경이면 ./gradlew test -Pplans.update=true 로 기록해서 커밋
+ * plans 디렉토리가 아직 없으면 기본 test task 에서 제외된다. (build.gradle, tag plan-regression)
+ * 공유 DB 에 남은 다른 데이터에 plan/scan 수가 흔들리지 않도록 별도 in-memory DB 에 데이터를 넣는다.
+ */
+@Tag("plan-regression")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-plan;DB_CLOSE_DELAY=-1")
+@Transactional
+@Import(SqlCapture.class)
+class QueryPlanRegressionTest {
+
+    private static final Path GOLDEN_DIR = Path.of("src", "test", "resources", "plans");
+    private static final boolean UPDATE = Boolean.getBoolean("plans.update");
+
+    private static final List<String> METHODS = List.of(
+            "search", "searchPageSimple", "searchPageComplex", "searchPageComplexDeferredJoin", "searchSlice");
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+        for (int i = 0; i < 200; i++) {
+            em.persist(new Member("member" + i, i % 60, teams.get(i % teams.size())));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    static Stream<Arguments> cases() {
+        return METHODS.stream()
+                .flatMap(method -> IntStream.range(0, 16).mapToObj(shape -> Arguments.of(method, shape)));
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @MethodSource("cases")
+    public void planDidNotRegress(String method, int shape) throws Exception {
+        MemberSearchCondition condition = condition(shape);
+
+        SqlCapture.start();
+        List<String> statements;
+        try {
+            run(method, condition);
+        } finally {
+            statements = SqlCapture.stop();
+        }
+
+        //EXPLAIN 은 캡처가 끝난 뒤에 같은 트랜잭션(커넥션)에서 실행
+        List<QueryPlan> plans = em.unwrap(Session.class).doReturningWork(connection -> {
+            List<QueryPlan> result = new ArrayList<>();
+            for (String sql : statements) {
+                result.add(QueryPlan.explain(connection, sql));
+            }
+            return result;
+        });
+        PlanSnapshot snapshot = new PlanSnapshot(plans);
+
+        Path golden = GOLDEN_DIR.resolve(method).resolve(shapeName(shape) + ".txt");
+        if (UPDATE) {
+            snapshot.write(golden);
+            return;
+        }
+        assertThat(golden)
+                .as("golden plan missing, record it with ./gradlew test -Pplans.update=true%n%s", snapshot.format())
+                .exists();
+        assertThat(snapshot.regressionsFrom(PlanSnapshot.read(golden)))
+                .as("%s %s plan regressed (golden: %s)%n%s", method, shapeName(shape), golden, snapshot.format())
+                .isEmpty();
+    }
+
+    private void run(String method, MemberSearchCondition condition) {
+        PageRequest pageable = PageRequest.of(1, 10);
+        switch (method) {
+            case "search" -> memberRepository.search(condition);
+            case "searchPageSimple" -> memberRepository.searchPageSimple(condition, pageable);
+            case "searchPageComplex" -> memberRepository.searchPageComplex(condition, pageable);
+            case "searchPageComplexDeferredJoin" -> {
+                PageSearchOptions options = new PageSearchOptions();
+                options.setFetchStrategy(PageFetchStrategy.DEFERRED_JOIN);
+                memberRepository.searchPageComplex(condition, pageable, options);
+            }
+            case "searchSlice" -> memberRepository.searchSlice(condition, pageable);
+            default -> throw new IllegalArgumentException(method);
+        }
+    }
+
+    //bit 0: username, 1: teamName, 2: ageGoe, 3: ageLoe
+    private static MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & 1) != 0) {
+            condition.setUsername("member7");
+        }
+        if ((shape & 2) != 0) {
+            condition.setTeamName("team1");
+        }
+        if ((shape & 4) != 0) {
+            condition.setAgeGoe(20);
+        }
+        if ((shape & 8) != 0) {
+            condition.setAgeLoe(40);
+        }
+        return condition;
+    }
+
+    private static String shapeName(int shape) {
+        List<String> names = new ArrayList<>();
+        String[] fields = {"username", "teamName", "ageGoe", "ageLoe"};
+        for (int bit = 0; bit < fields.length; bit++) {
+            if ((shape & (1 << bit)) != 0) {
+                names.add(fields[bit]);
+            }
+        }
+        return names.isEmpty() ? "none" : String.join("-", names);
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.plan;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드의 SQL 비용 상한. SqlBudgetExtension 이 측정해서 넘으면 테스트를 실패시킨다.
+ * 값이 -1 이면 검사하지 않는다. (테스트 안에서 데이터를 넣는 em.persist 는 select 가 아니므로 statement 에 포함되지 않음)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    //실행된 select 수 (쿼리 + 지연 로딩 엔티티/컬렉션 조회) - hibernate statistics
+    int statements() default -1;
+
+    //쿼리 결과 행 수 합계 - hibernate statistics
+    long rows() default -1;
+
+    //DB 가 읽은 행 수 합계 (H2 EXPLAIN ANALYZE scanCount, 테스트에서 넣은 데이터 기준)
+    long scannedRows() default -1;
+}
@@ -0,0 +1,120 @@
+package study.querydsl.plan;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SqlBudget} 이 붙은 테스트 메서드 본문 실행 동안의 SQL 비용을 측정해서 상한을 넘으면 실패시킨다.
+ * <ul>
+ *     <li>statements, rows: hibernate statistics (hibernate.generate_statistics=true 필요)</li>
+ *     <li>scannedRows: SqlCapture 로 모은 select 를 테스트 트랜잭션 안에서 EXPLAIN ANALYZE (SqlCapture 빈 등록 필요)</li>
+ * </ul>
+ * 사용: @ExtendWith(SqlBudgetExtension.class) @Import(SqlCapture.class)
+ */
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlBudget budget = context.getRequiredTestMethod().getAnnotation(SqlBudget.class);
+        if (budget == null) {
+            return;
+        }
+        Statistics statistics = statistics(context);
+        if (!statistics.isStatisticsEnabled()) {
+            throw new IllegalStateException("@SqlBudget requires hibernate.generate_statistics=true");
+        }
+        context.getStore(NAMESPACE).put(Usage.class, Usage.of(statistics));
+        SqlCapture.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws Exception {
+        SqlBudget budget = context.getRequiredTestMethod().getAnnotation(SqlBudget.class);
+        if (budget == null) {
+            return;
+        }
+        List<String> captured = SqlCapture.stop();
+        if (context.getExecutionException().isPresent()) {
+            return; //이미 실패한 테스트
+        }
+
+        Usage before = context.getStore(NAMESPACE).remove(Usage.class, Usage.class);
+        Usage used = Usage.of(statistics(context)).minus(before);
+
+        List<String> exceeded = new ArrayList<>();
+        if (budget.statements() >= 0 && used.statements() > budget.statements()) {
+            exceeded.add("statements " + used.statements() + " > " + budget.statements());
+        }
+        if (budget.rows() >= 0 && used.rows() > budget.rows()) {
+            exceeded.add("rows " + used.rows() + " > " + budget.rows());
+        }
+        if (budget.scannedRows() >= 0) {
+            List<String> queries = captured.stream().filter(QueryPlan::isQuery).toList();
+            if (queries.isEmpty() && used.statements() > 0) {
+                throw new IllegalStateException("@SqlBudget(scannedRows) requires SqlCapture to be registered (@Import(SqlCapture.class))");
+            }
+            long scanned = scannedRows(context, queries);
+            if (scanned > budget.scannedRows()) {
+                exceeded.add("scanned rows " + scanned + " > " + budget.scannedRows());
+            }
+        }
+
+        if (!exceeded.isEmpty()) {
+            throw new AssertionError("SQL budget exceeded in " + context.getDisplayName() + ": " + String.join(", ", exceeded)
+                    + "\n" + String.join("\n", captured));
+        }
+    }
+
+    //테스트 트랜잭션(같은 스레드)의 커넥션에서 실행해야 테스트가 넣은 데이터가 보인다.
+    private long scannedRows(ExtensionContext context, List<String> queries) {
+        EntityManager em = applicationContext(context).getBean(EntityManager.class);
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            long scanned = 0;
+            for (String sql : queries) {
+                scanned += QueryPlan.scanCount(connection, sql);
+            }
+            return scanned;
+        });
+    }
+
+    private static Statistics statistics(ExtensionContext context) {
+        return applicationContext(context).getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    private static ApplicationContext applicationContext(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context);
+    }
+
+    private record Usage(long statements, long rows) {
+
+        static Usage of(Statistics statistics) {
+            long statements = statistics.getQueryExecutionCount()
+                    + statistics.getEntityFetchCount()
+                    + statistics.getCollectionFetchCount();
+            long rows = 0;
+            for (String query : statistics.getQueries()) {
+                rows += statistics.getQueryStatistics(query).getExecutionRowCount();
+            }
+            return new Usage(statements, rows);
+        }
+
+        Usage minus(Usage other) {
+            return new Usage(statements - other.statements, rows - other.rows);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.plan;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 현재 스레드에서 실행된 SQL 을 (파라미터 값이 들어간 형태로) 모은다.
+ * p6spy 리스너로 등록해서 사용 (JdbcEventListener 빈은 p6spy-spring-boot-starter 가 자동 등록)
+ */
+public class SqlCapture extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    public static void start() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> statements = CAPTURED.get();
+        CAPTURED.remove();
+        return statements == null ? List.of() : statements;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> statements = CAPTURED.get();
+        if (statements != null) {
+            statements.add(statementInformation.getSqlWithValues());
+        }
+    }
+}
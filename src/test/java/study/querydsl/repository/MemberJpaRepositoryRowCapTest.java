@@ -0,0 +1,55 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CappedList;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.query.row-cap.default-cap=3",
+        "member.query.row-cap.methods.search=2"
+})
+@Transactional
+class MemberJpaRepositoryRowCapTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void searchIsCapped() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10));
+        }
+
+        CappedList<MemberTeamDto> result = memberJpaRepository.search(new MemberSearchCondition());
+
+        assertThat(result).hasSize(2);
+        assertThat(result.isTruncated()).isTrue();
+        assertThat(result.getCap()).isEqualTo(2);
+        //id 순서로 자른다. (/v3 page=1, size=cap 으로 이어서 조회)
+        assertThat(result).extracting("memberId").isSorted();
+    }
+
+    @Test
+    public void findAllUsesDefaultCap() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            em.persist(new Member("member" + i, i * 10));
+        }
+
+        CappedList<Member> result = memberJpaRepository.findAll_Querydsl();
+
+        //딱 cap 만큼 있으면 잘린 것이 아니다.
+        assertThat(result).hasSize(3);
+        assertThat(result.isTruncated()).isFalse();
+    }
+}
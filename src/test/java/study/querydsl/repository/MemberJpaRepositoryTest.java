@@ -3,20 +3,28 @@ package study.querydsl.repository;
 import jakarta.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.plan.SqlBudget;
+import study.querydsl.plan.SqlBudgetExtension;
+import study.querydsl.plan.SqlCapture;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 
-@SpringBootTest
+//@SqlBudget 의 scannedRows 는 테스트가 넣은 행 수 기준이므로, 공유 DB 에 남은 행의 영향을 받지 않도록 별도 in-memory DB 사용
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:repository;DB_CLOSE_DELAY=-1")
 @Transactional
+@ExtendWith(SqlBudgetExtension.class)
+@Import(SqlCapture.class)
 class MemberJpaRepositoryTest {
 
     @Autowired
@@ -57,6 +65,7 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @SqlBudget(statements = 1, rows = 1, scannedRows = 12)
     public void dynamicSearchTest() throws Exception{
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
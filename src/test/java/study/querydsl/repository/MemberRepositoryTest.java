@@ -1,25 +1,45 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.querydsl.QPageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.AgeBuckets;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageFetchStrategy;
+import study.querydsl.dto.PageSearchOptions;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.plan.SqlBudget;
+import study.querydsl.plan.SqlBudgetExtension;
+import study.querydsl.plan.SqlCapture;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
 
-@SpringBootTest
+//@SqlBudget 의 scannedRows 는 테스트가 넣은 행 수 기준이므로, 공유 DB 에 남은 행의 영향을 받지 않도록 별도 in-memory DB 사용
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:repository;DB_CLOSE_DELAY=-1")
 @Transactional
+@ExtendWith(SqlBudgetExtension.class)
+@Import(SqlCapture.class)
 class MemberRepositoryTest {
 
     @Autowired
@@ -28,6 +48,9 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    JPAQueryFactory queryFactory;
+
     @Test
     public void basicTest() throws Exception {
         Member member = new Member("member1", 10);
@@ -44,6 +67,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlBudget(statements = 1, rows = 1, scannedRows = 12)
     public void dynamicSearchTest() throws Exception {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -72,6 +96,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlBudget(statements = 2, rows = 4, scannedRows = 24)
     public void searchPageSimple() throws Exception {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -100,4 +125,271 @@ class MemberRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchSlice() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    @SqlBudget(statements = 2, rows = 2, scannedRows = 24)
+    public void searchPageComplex() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        //기본 (DIRECT): content 쿼리 + count 쿼리
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member3");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @SqlBudget(statements = 3, rows = 3, scannedRows = 30)
+    public void searchPageComplexDeferredJoin() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        PageSearchOptions options = new PageSearchOptions();
+        options.setFetchStrategy(PageFetchStrategy.DEFERRED_JOIN);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1), options);
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member3");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    public void searchPageComplexKnownTotal() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        PageSearchOptions options = new PageSearchOptions().withKnownTotal(4);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 2), options);
+
+        //count 쿼리 없이 전달받은 전체 개수 사용
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void searchPageSorted() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Order.desc("teamName"), Sort.Order.desc("age")));
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+    }
+
+    @Test
+    public void searchPageUnsupportedSort() throws Exception {
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("team.members"));
+
+        assertThatThrownBy(() -> memberRepository.searchPageSimple(new MemberSearchCondition(), pageRequest))
+                .isInstanceOf(InvalidSortPropertyException.class);
+    }
+
+    @Test
+    public void findAllByIds() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        //입력 순서 유지, 중복 유지, 없는 id 제외
+        List<Long> ids = List.of(member3.getId(), member1.getId(), -1L, member3.getId());
+
+        List<MemberTeamDto> result = memberRepository.findAllByIds(ids);
+        assertThat(result).extracting("username").containsExactly("member3", "member1", "member3");
+
+        List<Member> members = memberRepository.findMembersByIds(ids);
+        assertThat(members).containsExactly(member3, member1, member3);
+    }
+
+    @Test
+    public void searchBatch() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition teamACondition = new MemberSearchCondition();
+        teamACondition.setTeamName("teamA");
+        MemberSearchCondition olderCondition = new MemberSearchCondition();
+        olderCondition.setAgeGoe(20);
+        MemberSearchCondition noneCondition = new MemberSearchCondition();
+        noneCondition.setUsername("nobody");
+
+        Map<String, MemberSearchCondition> conditions = new LinkedHashMap<>();
+        conditions.put("teamA", teamACondition);
+        conditions.put("older", olderCondition);
+        conditions.put("none", noneCondition);
+
+        Map<String, List<MemberTeamDto>> result = memberRepository.searchBatch(conditions);
+
+        //member2 는 두 조건에 모두 포함
+        assertThat(result.get("teamA")).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.get("older")).extracting("username").containsExactly("member2", "member3", "member4");
+        assertThat(result.get("none")).isEmpty();
+    }
+
+    @Test
+    public void ageHistogram() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 25, teamA));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+
+        List<AgeBucketCountDto> result = memberRepository.ageHistogram(new AgeBuckets(List.of(20, 30)));
+
+        assertThat(result).containsExactly(
+                new AgeBucketCountDto("teamA", "0~20", 2),
+                new AgeBucketCountDto("teamA", "21~30", 1),
+                new AgeBucketCountDto("teamB", "31~", 1),
+                new AgeBucketCountDto(null, "31~", 1));
+    }
+
+    @Test
+    public void searchUsernameIgnoreCase() throws Exception {
+        Member member1 = new Member("Member1", 10);
+        em.persist(member1);
+        em.persist(new Member("member2", 20));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("MEMBER1");
+        assertThat(memberRepository.search(condition)).isEmpty();
+
+        condition.setUsernameIgnoreCase(true);
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("Member1");
+
+        //엔티티 수정 -> username_lower 도 같이 변경
+        member1.setUsername("Kim");
+        em.flush();
+        condition.setUsername("kIM");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("Kim");
+
+        //bulk update (QuerydslBasticTest.bulkUpdate 와 같이 직접 만든 factory) 도 username_lower 가 같이 바뀐다. (DB 생성 컬럼)
+        new JPAQueryFactory(em)
+                .update(member)
+                .set(member.username, "비회원")
+                .where(member.age.lt(28))
+                .execute();
+        em.clear();
+        condition.setUsername("비회원");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("비회원", "비회원");
+
+        //JPQL bulk update
+        em.createQuery("update Member m set m.username = 'LEE' where m.age = 20").executeUpdate();
+        em.clear();
+        condition.setUsername("lee");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("LEE");
+    }
+
+    @Test
+    public void saveAllBatched() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("batched" + i, i, teamA));
+        }
+
+        BatchSaveResult result = memberRepository.saveAllBatched(members, 4);
+
+        assertThat(result.getEntityCount()).isEqualTo(10);
+        assertThat(result.getBatchCount()).isEqualTo(3); //4 + 4 + 2
+        //insert 는 batch 마다 statement 1개 (+ 시퀀스 조회), 건별 insert 보다 적어야 한다.
+        assertThat(result.getStatementCount()).isBetween(3L, 9L);
+
+        //저장한 엔티티만 준영속, 호출한 쪽이 들고 있던 팀은 그대로 영속 상태
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(em.contains(teamA)).isTrue();
+
+        List<Member> saved = queryFactory
+                .selectFrom(member)
+                .where(member.username.startsWith("batched"))
+                .orderBy(member.age.asc())
+                .fetch();
+        assertThat(saved).extracting("username")
+                .containsExactly("batched0", "batched1", "batched2", "batched3", "batched4",
+                        "batched5", "batched6", "batched7", "batched8", "batched9");
+        assertThat(saved).extracting("team").containsOnly(teamA);
+    }
+
+    @Test
+    public void saveAllBatchedInvalidBatchSize() throws Exception {
+        assertThatThrownBy(() -> memberRepository.saveAllBatched(List.of(new Member("member1", 10)), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberRepository.saveAllBatched(List.of(new Member("member1", 10)), -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//StatelessSession 은 별도 커넥션을 쓰므로 @Transactional 없이 커밋된 데이터로 확인한다.
+@SpringBootTest
+class MemberStatelessRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberStatelessRepository memberStatelessRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("scan")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("scanTeam")).execute();
+        });
+    }
+
+    @Test
+    public void scanMembers() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("scanTeamA");
+            Team teamB = new Team("scanTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("scan1", 10, teamA));
+            em.persist(new Member("scan2", 20, teamA));
+            em.persist(new Member("scan3", 30, teamB));
+            em.persist(new Member("scan4", 40, teamB));
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("scanTeamB");
+        condition.setAgeGoe(35);
+
+        List<Member> result = new ArrayList<>();
+        long count = memberStatelessRepository.scanMembers(condition, result::add);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(result).extracting("username").containsExactly("scan4");
+        //fetch join 으로 가져왔으므로 세션이 닫혀도 team 을 읽을 수 있다.
+        assertThat(result.get(0).getTeam().getName()).isEqualTo("scanTeamB");
+    }
+
+    @Test
+    public void scanAll() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("scan" + i, i * 10));
+            }
+        });
+
+        List<String> usernames = new ArrayList<>();
+        long count = memberStatelessRepository.scanAll(scanned -> usernames.add(scanned.getUsername()));
+
+        assertThat(count).isEqualTo(usernames.size());
+        assertThat(usernames).contains("scan1", "scan2", "scan3", "scan4", "scan5");
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberStatisticsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberStatistics memberStatistics;
+
+    @Autowired
+    DataVersionCounter dataVersionCounter;
+
+    MemberStatistics.Snapshot snapshot;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 40));
+
+        em.flush();
+        snapshot = memberStatistics.refresh();
+    }
+
+    //롤백된 데이터로 집계한 통계가 다른 테스트에 남지 않도록
+    @AfterTransaction
+    public void after() {
+        memberStatistics.reset();
+    }
+
+    @Test
+    public void estimateByTeamAndAge() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+
+        MemberStatistics.Estimate estimate = memberStatistics.estimate(condition).get();
+
+        assertThat(estimate.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void estimateWithoutCondition() throws Exception {
+        MemberStatistics.Estimate estimate = memberStatistics.estimate(new MemberSearchCondition()).get();
+
+        //팀이 없는 회원도 포함
+        assertThat(estimate.getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void usernameCannotBeEstimated() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(memberStatistics.estimate(condition)).isEmpty();
+    }
+
+    @Test
+    public void errorBoundIsChangedMembersSinceRefresh() throws Exception {
+        assertThat(memberStatistics.estimate(new MemberSearchCondition()).get().getErrorBound()).isEqualTo(0);
+
+        dataVersionCounter.increment(DataVersionCounter.Changes.members(2));
+
+        assertThat(memberStatistics.estimate(new MemberSearchCondition()).get().getErrorBound()).isEqualTo(2);
+    }
+
+    //팀 이름이 바뀌면 회원 전체가 다른 팀으로 집계될 수 있다.
+    @Test
+    public void errorBoundCoversAllMembersAfterTeamChanged() throws Exception {
+        dataVersionCounter.increment(new DataVersionCounter.Changes(1, 1));
+
+        assertThat(memberStatistics.estimate(new MemberSearchCondition()).get().getErrorBound())
+                .isEqualTo(snapshot.getTotal() + 1);
+    }
+
+    @Test
+    public void noEstimateBeforeRefresh() throws Exception {
+        memberStatistics.reset();
+
+        assertThat(memberStatistics.estimate(new MemberSearchCondition())).isEmpty();
+    }
+}
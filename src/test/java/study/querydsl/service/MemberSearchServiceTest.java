@@ -0,0 +1,106 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.dto.TokenPage;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchService memberSearchService;
+
+    @Autowired
+    PageTokenCodec pageTokenCodec;
+
+    @Autowired
+    DataVersionCounter dataVersionCounter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final PageRequest secondPage = PageRequest.of(1, 2);
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("pageTokenTeam");
+        em.persist(teamA);
+        for (int i = 1; i <= 6; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+        condition.setTeamName("pageTokenTeam");
+    }
+
+    @Test
+    public void reusesTotalFromValidToken() throws Exception {
+        TokenPage<MemberTeamDto> first = search(PageRequest.of(0, 2), null);
+        assertThat(first.page().getTotalElements()).isEqualTo(6);
+        assertThat(first.pageToken()).isNotNull();
+
+        //count 를 생략했는지 확인하려고 실제와 다른 전체 개수를 넣은 token
+        String token = pageTokenCodec.encode(condition, 100, dataVersionCounter.current());
+        double reused = count("reused");
+
+        TokenPage<MemberTeamDto> second = search(secondPage, token);
+
+        assertThat(second.page().getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(second.page().getTotalElements()).isEqualTo(100);
+        assertThat(count("reused")).isEqualTo(reused + 1);
+    }
+
+    @Test
+    public void recountsWhenDataVersionChanged() throws Exception {
+        String token = pageTokenCodec.encode(condition, 100, dataVersionCounter.current());
+        dataVersionCounter.increment(DataVersionCounter.Changes.members(1)); //다른 인스턴스에서 커밋된 변경
+        double stale = count("stale");
+
+        TokenPage<MemberTeamDto> page = search(secondPage, token);
+
+        assertThat(page.page().getTotalElements()).isEqualTo(6);
+        assertThat(count("stale")).isEqualTo(stale + 1);
+        //새 버전으로 다시 발급
+        assertThat(pageTokenCodec.decodeTotal(page.pageToken(), condition, dataVersionCounter.current())).contains(6L);
+    }
+
+    @Test
+    public void recountsWhenTokenTampered() throws Exception {
+        String token = pageTokenCodec.encode(condition, 100, dataVersionCounter.current());
+        //서명 첫 글자를 바꾼다. (마지막 글자는 base64 패딩 비트라 바꿔도 같은 값으로 decode 될 수 있음)
+        int mac = token.indexOf('.') + 1;
+        String tampered = token.substring(0, mac) + (token.charAt(mac) == 'A' ? 'B' : 'A') + token.substring(mac + 1);
+        double invalid = count("invalid");
+
+        TokenPage<MemberTeamDto> page = search(secondPage, tampered);
+
+        assertThat(page.page().getTotalElements()).isEqualTo(6);
+        assertThat(count("invalid")).isEqualTo(invalid + 1);
+    }
+
+    private TokenPage<MemberTeamDto> search(PageRequest pageable, String token) {
+        return memberSearchService.searchPageComplex(condition, pageable, new PageSearchOptions(), token);
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("member.search.page-token", "result", result).count();
+    }
+}
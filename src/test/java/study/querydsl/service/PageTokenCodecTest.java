@@ -0,0 +1,70 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.change.DataVersionCounter;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageTokenCodecTest {
+
+    private static final DataVersionCounter.Stamp VERSION = new DataVersionCounter.Stamp(1, 7);
+
+    private final PageTokenProperties properties = new PageTokenProperties();
+
+    @Test
+    public void reusesTotalForSameConditionAndVersion() throws Exception {
+        PageTokenCodec codec = new PageTokenCodec(properties);
+        String token = codec.encode(condition("teamA", 20), 123, VERSION);
+
+        assertThat(codec.decodeTotal(token, condition("teamA", 20), VERSION)).contains(123L);
+        //조건이 바뀌거나 데이터가 바뀌면 다시 count
+        assertThat(codec.decodeTotal(token, condition("teamB", 20), VERSION)).isEmpty();
+        assertThat(codec.decodeTotal(token, condition("teamA", 20), new DataVersionCounter.Stamp(1, 8))).isEmpty();
+        //data_version 테이블이 다시 만들어진 경우 (version 이 우연히 같아도 epoch 가 다름)
+        assertThat(codec.decodeTotal(token, condition("teamA", 20), new DataVersionCounter.Stamp(2, 7))).isEmpty();
+        assertThat(codec.isAuthentic(token)).isTrue();
+    }
+
+    @Test
+    public void rejectsTamperedToken() throws Exception {
+        PageTokenCodec codec = new PageTokenCodec(properties);
+        String token = codec.encode(condition("teamA", 20), 123, VERSION);
+        char[] chars = token.toCharArray();
+        chars[12] = chars[12] == 'A' ? 'B' : 'A'; //payload 의 total 부분 변경
+        String tampered = new String(chars);
+
+        assertThat(codec.decodeTotal(tampered, condition("teamA", 20), VERSION)).isEmpty();
+        assertThat(codec.isAuthentic(tampered)).isFalse();
+        assertThat(codec.isAuthentic("not-a-token")).isFalse();
+        //다른 키로 발급된 token
+        assertThat(new PageTokenCodec(properties).isAuthentic(token)).isFalse();
+    }
+
+    @Test
+    public void expiresAfterTtl() throws Exception {
+        properties.setSecret("test-secret");
+        properties.setTtl(Duration.ofMinutes(10));
+        Instant issuedAt = Instant.parse("2024-01-01T00:00:00Z");
+        String token = new PageTokenCodec(properties, Clock.fixed(issuedAt, ZoneOffset.UTC))
+                .encode(condition("teamA", 20), 123, VERSION);
+
+        PageTokenCodec later = new PageTokenCodec(properties, Clock.fixed(issuedAt.plus(Duration.ofMinutes(11)), ZoneOffset.UTC));
+        PageTokenCodec sooner = new PageTokenCodec(properties, Clock.fixed(issuedAt.plus(Duration.ofMinutes(9)), ZoneOffset.UTC));
+
+        assertThat(later.decodeTotal(token, condition("teamA", 20), VERSION)).isEmpty();
+        assertThat(sooner.decodeTotal(token, condition("teamA", 20), VERSION)).contains(123L);
+    }
+
+    private static MemberSearchCondition condition(String teamName, int ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+}
@@ -0,0 +1,154 @@
+package study.querydsl.sharding;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.AgeBucketCountDto;
+import study.querydsl.dto.AgeBuckets;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageFetchStrategy;
+import study.querydsl.dto.PageSearchOptions;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//샤드 3개 = in-memory H2 3개. 데이터는 한번만 넣고 조회만 확인한다.
+@SpringBootTest(properties = {
+        "member.sharding.enabled=true",
+        "member.sharding.ddl-auto=create-drop",
+        "member.sharding.shards[0].url=jdbc:h2:mem:member-shard-0;DB_CLOSE_DELAY=-1",
+        "member.sharding.shards[1].url=jdbc:h2:mem:member-shard-1;DB_CLOSE_DELAY=-1",
+        "member.sharding.shards[2].url=jdbc:h2:mem:member-shard-2;DB_CLOSE_DELAY=-1"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    List<Team> teams = new ArrayList<>();
+    List<Member> members = new ArrayList<>();
+
+    @BeforeAll
+    public void setUp() {
+        for (String name : List.of("teamA", "teamB", "teamC", "teamD")) {
+            teams.add(shardedMemberRepository.save(new Team(name)));
+        }
+        for (int i = 1; i <= 12; i++) {
+            members.add(shardedMemberRepository.save(new Member("member" + i, i * 5, teams.get((i - 1) % teams.size()))));
+        }
+        members.add(shardedMemberRepository.save(new Member("solo1", 60)));
+        members.add(shardedMemberRepository.save(new Member("solo2", 70)));
+    }
+
+    @Test
+    public void membersAreStoredWithTheirTeam() throws Exception {
+        Set<Integer> teamShards = teams.stream()
+                .map(team -> ShardedMemberRepository.shardOf(team.getId()))
+                .collect(Collectors.toSet());
+        assertThat(teamShards).hasSizeGreaterThan(1);
+
+        for (Member saved : members) {
+            if (saved.getTeam() != null) {
+                assertThat(ShardedMemberRepository.shardOf(saved.getId()))
+                        .isEqualTo(ShardedMemberRepository.shardOf(saved.getTeam().getId()));
+            }
+        }
+    }
+
+    @Test
+    public void search() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(40);
+
+        List<MemberTeamDto> result = shardedMemberRepository.search(condition);
+
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member8", "member9", "member10", "member11", "member12", "solo1", "solo2");
+    }
+
+    @Test
+    public void searchPageSimpleMergesSortedShards() throws Exception {
+        PageRequest pageRequest = PageRequest.of(1, 4, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> result = shardedMemberRepository.searchPageSimple(new MemberSearchCondition(), pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(members.size());
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly(expected(Comparator.comparingInt(Member::getAge).reversed(), 4, 4).toArray());
+    }
+
+    @Test
+    public void searchPageComplexDeferredJoin() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        PageSearchOptions options = new PageSearchOptions();
+        options.setFetchStrategy(PageFetchStrategy.DEFERRED_JOIN);
+
+        Page<MemberTeamDto> result = shardedMemberRepository.searchPageComplex(condition,
+                PageRequest.of(0, 2, Sort.by("username")), options);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username").containsExactly("member10", "member2");
+    }
+
+    @Test
+    public void searchSlice() throws Exception {
+        Pageable pageable = PageRequest.of(2, 5, Sort.by("username"));
+
+        Slice<MemberTeamDto> last = shardedMemberRepository.searchSlice(new MemberSearchCondition(), pageable);
+        Slice<MemberTeamDto> middle = shardedMemberRepository.searchSlice(new MemberSearchCondition(), pageable.previousOrFirst());
+
+        assertThat(last.getContent()).extracting("username")
+                .containsExactly(expected(Comparator.comparing(Member::getUsername), 10, 5).toArray());
+        assertThat(last.hasNext()).isFalse();
+        assertThat(middle.getContent()).hasSize(5);
+        assertThat(middle.hasNext()).isTrue();
+    }
+
+    @Test
+    public void findAllByIdsKeepsInputOrder() throws Exception {
+        Member first = members.get(0);
+        Member solo = members.get(members.size() - 1);
+        Member other = members.get(5);
+        long unknown = (long) shardedMemberRepository.getShardCount() << 48;
+
+        List<MemberTeamDto> result = shardedMemberRepository.findAllByIds(List.of(solo.getId(), unknown, first.getId(), other.getId()));
+
+        assertThat(result).extracting("memberId").containsExactly(solo.getId(), first.getId(), other.getId());
+    }
+
+    @Test
+    public void ageHistogramSumsShards() throws Exception {
+        List<AgeBucketCountDto> result = shardedMemberRepository.ageHistogram(new AgeBuckets(List.of(30)));
+
+        assertThat(result.stream().mapToLong(AgeBucketCountDto::getCount).sum()).isEqualTo(members.size());
+        assertThat(result).extracting("teamName").containsExactly(
+                "teamA", "teamA", "teamB", "teamB", "teamC", "teamC", "teamD", "teamD", null);
+    }
+
+    //전체 회원을 정렬해서 offset 부터 size 개의 username (동률이면 id 순)
+    private List<String> expected(Comparator<Member> order, int offset, int size) {
+        return members.stream()
+                .sorted(order.thenComparing(Member::getId))
+                .skip(offset)
+                .limit(size)
+                .map(Member::getUsername)
+                .toList();
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> flight.execute("teamA", Duration.ofSeconds(5), () -> {
+                loads.incrementAndGet();
+                await(release);
+                return 42;
+            })));
+        }
+
+        //모든 호출이 leader 를 기다리는 상태가 될 때까지 대기
+        while (flight.getCoalesced() + flight.getExecuted() < 8) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        executor.shutdown();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.getExecuted()).isEqualTo(1);
+        assertThat(flight.getCoalesced()).isEqualTo(7);
+        assertThat(flight.getInflight()).isEqualTo(0);
+    }
+
+    @Test
+    public void leaderFailureIsPropagated() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+        assertThatThrownBy(() -> flight.execute("key", Duration.ofSeconds(1), () -> {
+            throw new IllegalArgumentException("boom");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        //실패한 key 는 남아있지 않아야 다음 호출이 다시 실행된다.
+        assertThat(flight.execute("key", Duration.ofSeconds(1), () -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    public void followerExecutesItselfAfterTimeout() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Integer> leader = executor.submit(() -> flight.execute("slow", Duration.ofSeconds(5), () -> {
+            await(release);
+            return 1;
+        }));
+        while (flight.getInflight() == 0) {
+            Thread.sleep(5);
+        }
+
+        Integer follower = flight.execute("slow", Duration.ofMillis(20), () -> 2);
+
+        assertThat(follower).isEqualTo(2);
+        assertThat(flight.getTimeouts()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    //leader 에게만 해당하는 예외 (예: leader 요청의 제한 시간 초과)는 기다리던 호출에 전달하지 않고 직접 실행하게 한다.
+    @Test
+    public void unsharedFailureIsRetriedByFollower() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(value -> true, e -> !(e instanceof IllegalStateException));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> leader = executor.submit(() -> flight.execute("key", Duration.ofSeconds(5), () -> {
+            leaderStarted.countDown();
+            await(release);
+            throw new IllegalStateException("leader deadline");
+        }));
+        await(leaderStarted);
+        Future<Integer> follower = executor.submit(() -> flight.execute("key", Duration.ofSeconds(5), () -> 2));
+        while (flight.getCoalesced() == 0) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(flight.getExecuted()).isEqualTo(2);
+        executor.shutdown();
+    }
+
+    @Test
+    public void unsharedResultIsRetriedByFollower() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(value -> value >= 0, e -> true);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> leader = executor.submit(() -> flight.execute("key", Duration.ofSeconds(5), () -> {
+            leaderStarted.countDown();
+            await(release);
+            return -1; //leader 의 부분 결과
+        }));
+        await(leaderStarted);
+        Future<Integer> follower = executor.submit(() -> flight.execute("key", Duration.ofSeconds(5), () -> 2));
+        while (flight.getCoalesced() == 0) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(-1);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
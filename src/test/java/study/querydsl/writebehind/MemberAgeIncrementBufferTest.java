@@ -0,0 +1,158 @@
+package study.querydsl.writebehind;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//JDBC 로 따로 commit 하므로 @Transactional 롤백을 쓸 수 없다. 끝나고 지운다.
+@SpringBootTest(properties = {
+        "member.age-increment.stripes=4",
+        "member.age-increment.flush-interval=1h", //주기 flush 는 테스트에서 직접 호출
+        "member.age-increment.flush-threshold=100",
+        "member.age-increment.batch-size=7"
+})
+class MemberAgeIncrementBufferTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberAgeIncrementBuffer buffer;
+
+    //이 테스트가 넣은 회원만 지운다.
+    private final List<Long> persisted = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        buffer.flush();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member m where m.id in :ids")
+                .setParameter("ids", persisted)
+                .executeUpdate());
+    }
+
+    @Test
+    public void aggregatesIncrementsUntilFlush() throws Exception {
+        Long memberId = persist(new Member("member1", 10));
+
+        buffer.increment(memberId, 1);
+        buffer.increment(memberId, 1);
+        buffer.increment(memberId, 3);
+
+        assertThat(buffer.pendingDelta(memberId)).isEqualTo(5);
+        assertThat(ageInDb(memberId)).isEqualTo(10);
+
+        //정확한 값이 필요한 조회는 먼저 반영한다.
+        assertThat(buffer.getAge(memberId)).isEqualTo(15);
+        assertThat(buffer.pendingDelta(memberId)).isZero();
+        assertThat(ageInDb(memberId)).isEqualTo(15);
+    }
+
+    @Test
+    public void concurrentIncrementsAreNotLost() throws Exception {
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            memberIds.add(persist(new Member("member" + i, 0)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(() -> {
+                    for (int n = 0; n < 500; n++) {
+                        buffer.increment(memberIds.get(n % memberIds.size()), 1);
+                        if (n % 100 == 0) {
+                            buffer.flush(); //증가와 flush 가 섞여도 유실이 없어야 한다.
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(buffer.flush()).isLessThanOrEqualTo(memberIds.size());
+        //8 스레드 * 500 번 / 20 명
+        for (Long memberId : memberIds) {
+            assertThat(ageInDb(memberId)).isEqualTo(200);
+        }
+    }
+
+    @Test
+    public void flushesWhenThresholdReached() throws Exception {
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            memberIds.add(persist(new Member("member" + i, 0)));
+        }
+
+        memberIds.forEach(memberId -> buffer.increment(memberId, 1));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (buffer.getPendingMembers() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(buffer.getPendingMembers()).isZero();
+        assertThat(ageInDb(memberIds.get(99))).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectsDeltaOutOfIntRange() throws Exception {
+        Long memberId = persist(new Member("member1", 10));
+
+        assertThatThrownBy(() -> buffer.increment(memberId, Integer.MAX_VALUE + 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(buffer.pendingDelta(memberId)).isZero();
+    }
+
+    @Test
+    public void overflowingMemberDoesNotBlockOthers() throws Exception {
+        Long poison = persist(new Member("member1", Integer.MAX_VALUE - 1));
+        Long other = persist(new Member("member2", 10));
+
+        buffer.increment(poison, 5); //age 범위 초과 -> 반영할 수 없음
+        buffer.increment(other, 1);
+
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(ageInDb(other)).isEqualTo(11);
+        //실패한 회원의 증가분은 버려서 다음 flush 를 막지 않는다.
+        assertThat(ageInDb(poison)).isEqualTo(Integer.MAX_VALUE - 1);
+        assertThat(buffer.pendingDelta(poison)).isZero();
+
+        buffer.increment(other, 1);
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(ageInDb(other)).isEqualTo(12);
+    }
+
+    private Long persist(Member member) {
+        transactionTemplate.executeWithoutResult(status -> em.persist(member));
+        persisted.add(member.getId());
+        return member.getId();
+    }
+
+    private int ageInDb(Long memberId) {
+        return transactionTemplate.execute(status -> em.createQuery("select m.age from Member m where m.id = :id", Integer.class)
+                .setParameter("id", memberId)
+                .getSingleResult());
+    }
+}